@@ -0,0 +1,60 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Archivo '.php' generado por la conversión.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+public final class ArchivoPHP {
+    private final String rutaRelativa;
+    private String contenido;
+    private ByteBuffer bytes;
+
+    public ArchivoPHP(String rutaRelativa, String contenido) {
+        this.rutaRelativa = rutaRelativa;
+        this.contenido = contenido;
+    }
+
+    /**
+     * @param rutaRelativa Ruta del archivo relativa a la ruta de guardado.
+     * @param bytes        Contenido del archivo codificado en UTF-8.
+     */
+    ArchivoPHP(String rutaRelativa, ByteBuffer bytes) {
+        this.rutaRelativa = rutaRelativa;
+        this.bytes = bytes;
+    }
+
+    // GETS
+
+    /**
+     * @return Ruta del archivo relativa a la ruta de guardado, separada por '/' y sin la
+     * extensión '.php'. Es la misma clave que usa el Map devuelto por
+     * {@code GeneradorPHP.generarPHP}.
+     */
+    public String getRutaRelativa() {
+        return rutaRelativa;
+    }
+
+    public String getContenido() {
+        if (contenido == null) {
+            byte[] todo = new byte[bytes.remaining()];
+            bytes.duplicate().get(todo);
+            contenido = new String(todo, StandardCharsets.UTF_8);
+        }
+        return contenido;
+    }
+
+    /**
+     * @return El contenido codificado en UTF-8. Cada llamada devuelve un buffer independiente,
+     * que puede consumirse sin afectar al archivo.
+     */
+    ByteBuffer getBytes() {
+        if (bytes == null) {
+            bytes = ByteBuffer.wrap(contenido.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.duplicate();
+    }
+}
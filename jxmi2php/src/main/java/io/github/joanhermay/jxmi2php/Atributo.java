@@ -8,6 +8,7 @@ class Atributo {
     private String visibilidad;
     private boolean estatico;
     private boolean esReferenciaAUnaClase;
+    private Clase claseReferenciada;
 
     public Atributo() {
         this.nombre = "";
@@ -45,4 +46,12 @@ class Atributo {
     public void setEsReferenciaAUnaClase(boolean esReferenciaAUnaClase) {
         this.esReferenciaAUnaClase = esReferenciaAUnaClase;
     }
+
+    public Clase getClaseReferenciada() {
+        return claseReferenciada;
+    }
+
+    public void setClaseReferenciada(Clase claseReferenciada) {
+        this.claseReferenciada = claseReferenciada;
+    }
 }
@@ -1,5 +1,6 @@
 package io.github.joanhermay.jxmi2php;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,12 +14,16 @@ class Clase {
     private boolean interfaz;
     private List<Metodo> metodos;
     private List<Atributo> atributos;
+    private List<String> paquetes;
+    private String rutaArchivo;
 
     public Clase() {
         this.id = "";
         this.nombre = "";
         this.metodos = new ArrayList<>();
         this.atributos = new ArrayList<>();
+        this.paquetes = new ArrayList<>();
+        this.rutaArchivo = "";
     }
 
     // SETS-GETS
@@ -74,191 +79,293 @@ class Clase {
         this.atributos = atributos;
     }
 
+    /**
+     * @return Nombres de los paquetes UML que contienen a la clase, del más externo al más interno.
+     */
+    public List<String> getPaquetes() {
+        return paquetes;
+    }
+
+    public void setPaquetes(List<String> paquetes) {
+        this.paquetes = paquetes;
+    }
+
+    /**
+     * @return Ruta relativa del archivo de la clase, separada por '/' y sin la extensión '.php'.
+     * Si no se ha asignado, el nombre de la clase.
+     */
+    public String getRutaArchivo() {
+        return rutaArchivo.isEmpty() ? getNombre() : rutaArchivo;
+    }
+
+    public void setRutaArchivo(String rutaArchivo) {
+        this.rutaArchivo = rutaArchivo;
+    }
+
+    /**
+     * @return Namespace PHP que corresponde a los paquetes de la clase. Cadena vacía si la
+     * clase no pertenece a ningún paquete.
+     */
+    public String getNamespace() {
+        return String.join("\\", getPaquetes());
+    }
+
+    /**
+     * @return Nombre de la clase precedido por su namespace.
+     */
+    public String getNombreCompleto() {
+        return getPaquetes().isEmpty() ? getNombre() : getNamespace() + '\\' + getNombre();
+    }
+
     // Métodos utilitarios
-    private void generarAtributos(StringBuilder sb) {
+    private void generarAtributos(SalidaPHP salida, OpcionesGeneracion opciones) {
         if (!getAtributos().isEmpty()) {
-            sb.append("    // ATRIBUTOS").append('\n');
+            salida.fijo("    // ATRIBUTOS\n");
             for (Atributo a : getAtributos()) {
                 if (!a.getNombre().isEmpty()) {
-                    sb.append("    ");
+                    salida.fijo("    ");
                     if (a.esEstatico()) {
-                        sb.append(a.getVisibilidad()).append(" static $").append(a.getNombre().toLowerCase()).append(';');
+                        salida.texto(a.getVisibilidad()).fijo(" static $").texto(a.getNombre().toLowerCase()).fijo(";\n");
+                    } else if (opciones.usaTipos() && a.getClaseReferenciada() != null) {
+                        salida.texto(a.getVisibilidad()).fijo(" ?").texto(tipoDe(a, opciones))
+                                .fijo(" $").texto(a.getNombre().toLowerCase()).fijo(" = null;\n");
                     } else {
-                        sb.append(a.getVisibilidad()).append(" $").append(a.getNombre().toLowerCase()).append(';');
+                        salida.texto(a.getVisibilidad()).fijo(" $").texto(a.getNombre().toLowerCase()).fijo(";\n");
                     }
-                    sb.append('\n');
                 }
             }
-            sb.append('\n');
+            salida.fijo('\n');
         }
     }
 
-    private void generarSetsGets(StringBuilder sb) {
+    private void generarSetsGets(SalidaPHP salida, OpcionesGeneracion opciones) {
         if (!getAtributos().isEmpty()) {
-            sb.append("    // SETS-GETS").append('\n');
+            salida.fijo("    // SETS-GETS\n");
             for (Atributo a : getAtributos()) {
                 if (!a.getNombre().isEmpty()) {
-                    sb.append("    ")
-                            .append("public function set")
-                            .append(hacerPalabraPrimeraLetraMayuscula(a.getNombre().toLowerCase()))
-                            .append("($").append(a.getNombre().toLowerCase()).append(')').append("\n")
-                            .append("    ").append('{').append('\n')
-                            .append("        ").append("$this->").append(a.getNombre().toLowerCase()).append(" = ")
-                            .append("$").append(a.getNombre().toLowerCase()).append(';').append('\n')
-                            .append("    ").append('}').append('\n');
-                    sb.append('\n');
-                    sb.append("    ")
-                            .append("public function get")
-                            .append(hacerPalabraPrimeraLetraMayuscula(a.getNombre().toLowerCase())).append("()").append('\n')
-                            .append("    ").append("{").append('\n')
-                            .append("        ")
-                            .append("return $this->").append(a.getNombre().toLowerCase()).append(';').append('\n')
-                            .append("    ").append('}').append('\n');
-                    sb.append('\n');
+                    // Tipo de retorno y de parámetro, solo si se conoce la clase referenciada
+                    boolean conTipo = opciones.usaTipos() && a.getClaseReferenciada() != null;
+                    String nombre = a.getNombre().toLowerCase();
+                    String nombreMetodo = hacerPalabraPrimeraLetraMayuscula(nombre);
+
+                    salida.fijo("    public function set").texto(nombreMetodo).fijo('(');
+                    if (conTipo) {
+                        salida.fijo('?').texto(tipoDe(a, opciones)).fijo(' ');
+                    }
+                    salida.fijo('$').texto(nombre).fijo(')');
+                    if (conTipo) {
+                        salida.fijo(": void");
+                    }
+                    salida.fijo("\n    {\n        $this->").texto(nombre).fijo(" = $").texto(nombre)
+                            .fijo(";\n    }\n\n    public function get").texto(nombreMetodo).fijo("()");
+                    if (conTipo) {
+                        salida.fijo(": ?").texto(tipoDe(a, opciones));
+                    }
+                    salida.fijo("\n    {\n        return $this->").texto(nombre).fijo(";\n    }\n\n");
                 }
             }
         }
     }
 
-    private void generarMetodos(StringBuilder sb) {
+    private void generarMetodos(SalidaPHP salida) {
         if (!getMetodos().isEmpty()) {
-            sb.append("    // MÉTODOS").append('\n');
+            salida.fijo("    // MÉTODOS\n");
             for (Metodo m : getMetodos()) {
                 if (!m.getNombre().isEmpty()) {
                     if (getNombre().equals(m.getNombre())) {
                         if (!esAbstracta() && !esInterfaz()) {
-                            sb.append("\n\n");
-                            generarConstructor(sb, m);
+                            salida.fijo("\n\n");
+                            generarConstructor(salida, m);
                         }
                     } else {
-                        sb.append("    ").append(m.getVisibilidad());
+                        salida.fijo("    ").texto(m.getVisibilidad());
                         if (m.esAbstracto()) {
-                            sb.append(" abstract ");
+                            salida.fijo(" abstract function ");
                         } else if (m.esEstatico()) {
-                            sb.append(" static ");
+                            salida.fijo(" static function ");
                         } else {
-                            sb.append(' ');
-                        }
-                        sb.append("function ").append(m.getNombre());
-                        if (!m.getParametros().isEmpty()) {
-                            sb.append('(');
-                            for (String parametro : m.getParametros()) {
-                                if (!parametro.isEmpty()) {
-                                    sb.append('$').append(parametro).append(", ");
-                                }
-                            }
-                            sb.replace(sb.length() - 2, sb.length(), ")");
-                        } else {
-                            sb.append("()");
+                            salida.fijo(" function ");
                         }
+                        salida.texto(m.getNombre());
+                        generarParametros(salida, m, "$");
 
                         if (!m.esAbstracto()) {
-                            sb.append('\n');
-                            sb.append("    ");
-                            sb.append('{').append('\n')
-                                    .append("        ")
-                                    .append("// Inserte su código aquí...").append('\n')
-                                    .append("    ")
-                                    .append('}');
+                            salida.fijo("\n    {\n        // Inserte su código aquí...\n    }\n\n");
                         } else {
-                            sb.append(';');
+                            salida.fijo(";\n\n");
                         }
-                        sb.append("\n\n");
                     }
                 }
             }
         }
     }
 
-    private void generarConstructor(StringBuilder sb, Metodo metodoConstructor) {
-        sb.append("    // CONSTRUCTOR SEGÚN DIAGRAMA").append('\n');
-        sb.append("    ").append("public function __construct");
+    private void generarConstructor(SalidaPHP salida, Metodo metodoConstructor) {
+        salida.fijo("    // CONSTRUCTOR SEGÚN DIAGRAMA\n    public function __construct");
+        generarParametros(salida, metodoConstructor, "");
+        salida.fijo("\n    {\n");
         if (!metodoConstructor.getParametros().isEmpty()) {
-            sb.append('(');
-            for (String parametro : metodoConstructor.getParametros()) {
-                if (!parametro.isEmpty()) {
-                    sb.append(parametro).append(", ");
+            for (String p : metodoConstructor.getParametros()) {
+                if (!p.isEmpty()) {
+                    salida.fijo("        $this->").texto(p).fijo(" = $").texto(p).fijo(";\n");
                 }
             }
-            sb.replace(sb.length() - 2, sb.length(), ")");
-        } else {
-            sb.append("()");
         }
-        sb.append('\n');
-        sb.append("    ").append('{').append('\n');
-        if (!metodoConstructor.getParametros().isEmpty()) {
-            for (String p : metodoConstructor.getParametros()) {
-                if (!p.isEmpty()) {
-                    sb.append("        ");
-                    sb.append("$this->").append(p).append(" = ").append('$').append(p).append(';').append('\n');
+        salida.fijo("    }");
+    }
+
+    /**
+     * @param salida  Salida donde se escribe la lista de parámetros, entre paréntesis.
+     * @param metodo  Método al que pertenecen los parámetros.
+     * @param prefijo Texto que precede al nombre de cada parámetro.
+     */
+    private void generarParametros(SalidaPHP salida, Metodo metodo, String prefijo) {
+        salida.fijo('(');
+        boolean primero = true;
+        for (String parametro : metodo.getParametros()) {
+            if (!parametro.isEmpty()) {
+                if (!primero) {
+                    salida.fijo(", ");
                 }
+                salida.fijo(prefijo).texto(parametro);
+                primero = false;
             }
         }
-        sb.append("    ").append('}');
+        salida.fijo(')');
+    }
+
+    /**
+     * @param atributo Atributo que referencia a otra clase.
+     * @param opciones Opciones de la conversión.
+     * @return Nombre de la clase referenciada tal como debe escribirse en una declaración de tipo.
+     */
+    private String tipoDe(Atributo atributo, OpcionesGeneracion opciones) {
+        if (opciones.usaNamespaces()) {
+            // Nombre totalmente calificado, para que no se resuelva dentro del namespace de esta clase
+            return '\\' + atributo.getClaseReferenciada().getNombreCompleto();
+        }
+        return atributo.getClaseReferenciada().getNombre();
     }
 
     private String hacerPalabraPrimeraLetraMayuscula(String texto) {
         return texto.substring(0, 1).toUpperCase().concat(texto.substring(1));
     }
 
-    private void agregarToString(StringBuilder sb) {
+    private void agregarToString(SalidaPHP salida) {
 
-        sb.append("    // Este método existe solo para fines de prueba. Puede eliminarlo si lo desea.\n")
-                .append("    ")
-                .append("public function __toString()\n").append("    ").append("{\n        ")
-                .append("// El retorno que se muestra a continuación es para fines de pruebas\n" +
-                        "        // Como usuario, puede cambiar esta función como desee.\n\n")
-                .append("        return \"Soy un objeto ").append(getNombre()).append(".\";")
-                .append("\n    }\n");
+        salida.fijo("    // Este método existe solo para fines de prueba. Puede eliminarlo si lo desea.\n" +
+                        "    public function __toString()\n" +
+                        "    {\n" +
+                        "        // El retorno que se muestra a continuación es para fines de pruebas\n" +
+                        "        // Como usuario, puede cambiar esta función como desee.\n\n" +
+                        "        return \"Soy un objeto ")
+                .texto(getNombre()).fijo(".\";\n    }\n");
     }
 
     public final String generarCodigo() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<?php").append('\n');
-        genenerarRequires(sb);
-        sb.append('\n');
+        return generarCodigo(new OpcionesGeneracion());
+    }
+
+    public final String generarCodigo(OpcionesGeneracion opciones) {
+        SalidaTexto salida = new SalidaTexto();
+        generarCodigo(salida, opciones);
+        return salida.toString();
+    }
+
+    /**
+     * @param opciones Opciones de la conversión.
+     * @return El código de la clase codificado en UTF-8, en un solo buffer listo para
+     * escribirse con una sola escritura.
+     */
+    public final ByteBuffer generarCodigoUTF8(OpcionesGeneracion opciones) {
+        SalidaUTF8 salida = new SalidaUTF8();
+        generarCodigo(salida, opciones);
+        return salida.getBuffer();
+    }
+
+    private void generarCodigo(SalidaPHP salida, OpcionesGeneracion opciones) {
+        salida.fijo("<?php\n");
+        if (opciones.usaNamespaces() && !getPaquetes().isEmpty()) {
+            salida.fijo("namespace ").texto(getNamespace()).fijo(";\n");
+        }
+        genenerarRequires(salida, opciones);
+        salida.fijo('\n');
 
         // Información básica de la clase
         if (esAbstracta()) {
-            sb.append("abstract class ");
-            sb.append(getNombre()).append("\n{\n\n");
-            generarAtributos(sb);
-            generarSetsGets(sb);
-            generarMetodos(sb);
-            agregarToString(sb);
+            salida.fijo("abstract class ");
+            salida.texto(getNombre()).fijo("\n{\n\n");
+            generarAtributos(salida, opciones);
+            generarSetsGets(salida, opciones);
+            generarMetodos(salida);
+            agregarToString(salida);
         } else {
             if (esInterfaz()) {
-                sb.append("interface ");
-                sb.append(getNombre()).append("\n{\n\n");
+                salida.fijo("interface ");
+                salida.texto(getNombre()).fijo("\n{\n\n");
             } else {
-                sb.append("class ");
-                sb.append(getNombre()).append("\n{\n\n");
-                generarAtributos(sb);
-                sb.append('\n');
-                generarSetsGets(sb);
-                generarMetodos(sb);
-                agregarToString(sb);
+                salida.fijo("class ");
+                salida.texto(getNombre()).fijo("\n{\n\n");
+                generarAtributos(salida, opciones);
+                salida.fijo('\n');
+                generarSetsGets(salida, opciones);
+                generarMetodos(salida);
+                agregarToString(salida);
             }
         }
-        sb.append("}\n");
-        sb.append("?>");
-        return sb.toString();
+        salida.fijo("}\n?>");
     }
 
-    private void genenerarRequires(StringBuilder sb) {
-        if (!getAtributos().isEmpty()) {
+    private void genenerarRequires(SalidaPHP salida, OpcionesGeneracion opciones) {
+        // Con un autoloader las clases asociadas se cargan cuando se usan
+        if (opciones.getCarga() == ModoCarga.REQUIRE_ONCE && !getAtributos().isEmpty()) {
             // Los 'require' que necesita la clase, si hay atributos marcados
             for (Atributo a : getAtributos()) {
                 if (!a.getNombre().isEmpty()) {
                     if (a.EsReferenciaAUnaClase()) {
-                        sb.append("require_once ")
-                                .append("'")
-                                .append(hacerPalabraPrimeraLetraMayuscula(a.getNombre())).append(".php")
-                                .append("';")
-                                .append('\n');
+                        if (opciones.getDistribucion() == DistribucionArchivos.PLANA
+                                || a.getClaseReferenciada() == null) {
+                            salida.fijo("require_once '")
+                                    .texto(hacerPalabraPrimeraLetraMayuscula(a.getNombre()))
+                                    .fijo(".php';\n");
+                        } else {
+                            // Los archivos están en distintos directorios, la ruta se resuelve
+                            // a partir del directorio de esta clase
+                            salida.fijo("require_once __DIR__ . '/")
+                                    .texto(rutaRelativaHacia(a.getClaseReferenciada().getRutaArchivo()))
+                                    .fijo(".php';\n");
+                        }
                     }
                 }
             }
         }
     }
+
+    /**
+     * @param rutaDestino Ruta de otro archivo generado, relativa a la ruta de guardado.
+     * @return Ruta del archivo destino relativa al directorio del archivo de esta clase.
+     */
+    private String rutaRelativaHacia(String rutaDestino) {
+        String[] origen = getRutaArchivo().split("/");
+        String[] destino = rutaDestino.split("/");
+
+        // Directorios en común, sin contar el nombre del archivo
+        int comunes = 0;
+        while (comunes < origen.length - 1 && comunes < destino.length - 1
+                && origen[comunes].equals(destino[comunes])) {
+            comunes++;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = comunes; i < origen.length - 1; i++) {
+            sb.append("../");
+        }
+        for (int i = comunes; i < destino.length; i++) {
+            sb.append(destino[i]);
+            if (i < destino.length - 1) {
+                sb.append('/');
+            }
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,80 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Forma en que se distribuyen los archivos '.php' generados dentro de la ruta de guardado.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+public enum DistribucionArchivos {
+    /**
+     * Todos los archivos en un único directorio, nombrados solo con el nombre de la clase. Es
+     * la distribución por defecto. Si dos clases tienen el mismo nombre, aunque estén en
+     * distintos paquetes, la conversión falla.
+     */
+    PLANA,
+
+    /**
+     * Un directorio por cada paquete UML, replicando la jerarquía de paquetes del modelo.
+     */
+    POR_PAQUETE,
+
+    /**
+     * Directorios de dos dígitos hexadecimales (256 por nivel) calculados a partir del hash
+     * del nombre completo de la clase. Se usan tantos niveles como sean necesarios para no
+     * superar el máximo de archivos por directorio indicado en las opciones.
+     *
+     * <p>El nombre de cada archivo es el nombre completo de la clase, con sus paquetes
+     * separados por '.', para que dos clases con el mismo nombre en distintos paquetes no
+     * coincidan aunque caigan en el mismo directorio.
+     */
+    FRAGMENTADA;
+
+    private static final int DIRECTORIOS_POR_NIVEL = 256;
+
+    /**
+     * @param clase   Clase de la que se quiere obtener la ruta.
+     * @param niveles Niveles de directorios a usar en la distribución fragmentada.
+     * @return Ruta relativa del archivo de la clase, separada por '/' y sin la extensión '.php'.
+     */
+    String rutaDe(Clase clase, int niveles) {
+        switch (this) {
+            case POR_PAQUETE:
+                if (clase.getPaquetes().isEmpty()) {
+                    return clase.getNombre();
+                }
+                return String.join("/", clase.getPaquetes()) + '/' + clase.getNombre();
+            case FRAGMENTADA:
+                // Se mezclan los bits del hash para que nombres parecidos no caigan en el mismo directorio
+                int hash = clase.getNombreCompleto().hashCode();
+                hash ^= (hash >>> 16);
+                hash *= 0x45d9f3b;
+                hash ^= (hash >>> 16);
+
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < niveles; i++) {
+                    int directorio = (hash >>> (8 * i)) & 0xff;
+                    sb.append(Character.forDigit(directorio >>> 4, 16))
+                            .append(Character.forDigit(directorio & 0xf, 16))
+                            .append('/');
+                }
+                return sb.append(clase.getNombreCompleto().replace('\\', '.')).toString();
+            default:
+                return clase.getNombre();
+        }
+    }
+
+    /**
+     * @param cantidadDeClases          Cantidad de clases a distribuir.
+     * @param maxEntradasPorDirectorio  Máximo de archivos deseado por directorio.
+     * @return Niveles de directorios necesarios en la distribución fragmentada. Entre 1 y 4.
+     */
+    static int nivelesNecesarios(int cantidadDeClases, int maxEntradasPorDirectorio) {
+        int niveles = 1;
+        long capacidad = (long) DIRECTORIOS_POR_NIVEL * Math.max(1, maxEntradasPorDirectorio);
+        while (niveles < 4 && capacidad < cantidadDeClases) {
+            niveles++;
+            capacidad *= DIRECTORIOS_POR_NIVEL;
+        }
+        return niveles;
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Conjunto de archivos XMI que se convierten como un único modelo, de forma que las
+ * asociaciones de un archivo pueden referirse a clases definidas en otro.
+ *
+ * <p>El contenido de cada archivo se conserva en memoria junto con un índice, compartido
+ * por todos los archivos, del ID de cada clase al archivo que la define. Cuando un archivo
+ * cambia en disco, solo ese archivo se vuelve a analizar; el índice se reconstruye a partir
+ * de los modelos que ya están en memoria, sin volver a leer los demás archivos.
+ *
+ * <p>Si dos archivos definen una clase con el mismo ID, prevalece la del archivo agregado
+ * primero.
+ *
+ * <p>Esta clase no es segura para usarse desde varios hilos a la vez.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+public final class EspacioDeTrabajo {
+    private final GeneradorPHP generador;
+    private final Map<Path, ModeloEnCache> modelos;
+    private final Map<String, Path> indiceDeClases;
+
+    public EspacioDeTrabajo() {
+        this.generador = new GeneradorPHP();
+        this.modelos = new LinkedHashMap<>();
+        this.indiceDeClases = new HashMap<>();
+    }
+
+    /**
+     * Agrega un archivo al espacio de trabajo. El archivo se analiza en la siguiente
+     * actualización.
+     *
+     * @param archivo Archivo que contiene el código XMI, comprimido con gzip o sin comprimir.
+     */
+    public void agregarModelo(Path archivo) {
+        modelos.putIfAbsent(normalizar(archivo), new ModeloEnCache());
+    }
+
+    /**
+     * @param archivo Archivo a quitar del espacio de trabajo.
+     */
+    public void quitarModelo(Path archivo) {
+        Path ruta = normalizar(archivo);
+        if (modelos.remove(ruta) != null) {
+            reindexar();
+        }
+    }
+
+    /**
+     * @return Los archivos del espacio de trabajo, en el orden en que fueron agregados.
+     */
+    public Set<Path> getModelos() {
+        return Collections.unmodifiableSet(modelos.keySet());
+    }
+
+    /**
+     * Vuelve a analizar los archivos nuevos y los que cambiaron en disco desde su último
+     * análisis, según su fecha de modificación y su tamaño, con los límites por defecto.
+     *
+     * @return Los archivos que se analizaron.
+     * @throws GeneradorPHPException Si algún archivo no existe o no puede convertirse. Los
+     *                               archivos analizados antes del error quedan actualizados.
+     * @see #actualizar(LimitesConversion)
+     */
+    public Set<Path> actualizar() throws GeneradorPHPException {
+        return actualizar(new LimitesConversion());
+    }
+
+    /**
+     * Vuelve a analizar los archivos nuevos y los que cambiaron en disco desde su último
+     * análisis, según su fecha de modificación y su tamaño.
+     *
+     * @param limites Límites que se aplican a cada archivo que se analiza.
+     * @return Los archivos que se analizaron.
+     * @throws GeneradorPHPException Si algún archivo no existe, no puede convertirse o supera
+     *                               alguno de los límites. Los archivos analizados antes del
+     *                               error quedan actualizados.
+     */
+    public Set<Path> actualizar(LimitesConversion limites) throws GeneradorPHPException {
+        Set<Path> analizados = new LinkedHashSet<>();
+        try {
+            for (Map.Entry<Path, ModeloEnCache> entrada : modelos.entrySet()) {
+                Path ruta = entrada.getKey();
+                ModeloEnCache cache = entrada.getValue();
+
+                BasicFileAttributes atributos;
+                try {
+                    atributos = Files.readAttributes(ruta, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    throw new GeneradorPHPException("ERROR CRÍTICO EN CONVERSOR PHP: " +
+                            "No se puede acceder al archivo o no existe: " + ruta + ".", e);
+                }
+
+                if (cache.modelo == null || !atributos.lastModifiedTime().equals(cache.modificacion)
+                        || atributos.size() != cache.tamano) {
+                    cache.modelo = generador.leerModelo(ruta, limites);
+                    cache.modificacion = atributos.lastModifiedTime();
+                    cache.tamano = atributos.size();
+                    analizados.add(ruta);
+                }
+            }
+        } finally {
+            // También si un archivo falla, para que el índice incluya los ya analizados
+            if (!analizados.isEmpty()) {
+                reindexar();
+            }
+        }
+        return analizados;
+    }
+
+    /**
+     * Convierte todos los archivos del espacio de trabajo a código PHP, resolviendo las
+     * asociaciones entre clases de distintos archivos. Antes de convertir, se actualizan
+     * los archivos que cambiaron.
+     *
+     * @param opciones Opciones de la conversión. La selección puede incluir clases de
+     *                 cualquiera de los archivos.
+     * @return Map con las clases generadas a partir de todos los archivos.
+     * @throws GeneradorPHPException Si algún archivo no puede convertirse, algún elemento de
+     *                               la selección no coincide con ninguna clase, o se supera
+     *                               alguno de los límites de las opciones. El límite de clases
+     *                               se aplica a la suma de todos los archivos.
+     */
+    public Map<String, String> generarPHP(OpcionesGeneracion opciones) throws GeneradorPHPException {
+        actualizar(opciones.getLimites());
+
+        // Copias de las clases en cache, para que la resolución no modifique la cache
+        List<Clase> clases = new ArrayList<>();
+        List<Asociacion> asociaciones = new ArrayList<>();
+        for (Map.Entry<Path, ModeloEnCache> entrada : modelos.entrySet()) {
+            ModeloXMI modelo = entrada.getValue().modelo;
+            for (Clase c : modelo.getClases()) {
+                // Una clase cuyo ID ya define un archivo agregado antes no se genera
+                if (entrada.getKey().equals(indiceDeClases.get(c.getId()))) {
+                    clases.add(copiar(c));
+                }
+            }
+            asociaciones.addAll(modelo.getAsociaciones());
+        }
+        opciones.getLimites().verificarClases(clases.size());
+
+        ResolutorDeAsociaciones resolutor = new ResolutorDeAsociaciones(asociaciones, indiceDeClases.keySet());
+        for (Clase c : clases) {
+            resolutor.registrar(c);
+        }
+
+        if (!opciones.getSeleccion().isEmpty()) {
+            clases = generador.seleccionarClases(clases, opciones.getSeleccion());
+        }
+        return generador.generarCodigoDeClases(clases, opciones);
+    }
+
+    public Map<String, String> generarPHP() throws GeneradorPHPException {
+        return generarPHP(new OpcionesGeneracion());
+    }
+
+    /**
+     * @param id ID de una clase.
+     * @return {@code Optional} con el archivo que define la clase.
+     * <p>{@code Optional} vacío, si ningún archivo analizado la define.
+     */
+    public Optional<Path> buscarModeloDeClase(String id) {
+        return Optional.ofNullable(indiceDeClases.get(id));
+    }
+
+    /**
+     * Reconstruye el índice de clases respetando el orden en que se agregaron los archivos.
+     */
+    private void reindexar() {
+        indiceDeClases.clear();
+        for (Map.Entry<Path, ModeloEnCache> entrada : modelos.entrySet()) {
+            if (entrada.getValue().modelo != null) {
+                for (Clase c : entrada.getValue().modelo.getClases()) {
+                    indiceDeClases.putIfAbsent(c.getId(), entrada.getKey());
+                }
+            }
+        }
+    }
+
+    private Path normalizar(Path archivo) {
+        return archivo.toAbsolutePath().normalize();
+    }
+
+    private Clase copiar(Clase original) {
+        Clase copia = new Clase();
+        copia.setId(original.getId());
+        copia.setNombre(original.getNombre());
+        copia.setAbstracta(original.esAbstracta());
+        copia.setInterfaz(original.esInterfaz());
+        copia.setPaquetes(original.getPaquetes());
+        copia.setMetodos(original.getMetodos());
+        copia.setAtributos(new ArrayList<>(original.getAtributos()));
+        return copia;
+    }
+
+    /**
+     * Contenido de un archivo y el estado del archivo cuando fue analizado.
+     */
+    private static final class ModeloEnCache {
+        private ModeloXMI modelo;
+        private FileTime modificacion;
+        private long tamano;
+    }
+}
@@ -1,19 +1,35 @@
 package io.github.joanhermay.jxmi2php;
 
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXParseException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.regex.Pattern;
 
 /**
  * @author Josué Andrés Hernández Martínez
@@ -37,6 +53,30 @@ public final class GeneradorPHP {
     private static final String ERROR_ANALISIS = "ERROR CRÍTICO EN CONVERSOR PHP: " +
             "Conversión cancelada. Se encontraron inconsistencias en la estructura del archivo.";
 
+    private static final String ERROR_COMPRESION_NO_SOPORTADA = "ERROR EN CONVERSOR PHP: " +
+            "El archivo está comprimido con zstd, formato no soportado. " +
+            "Formatos de compresión soportados: gzip.";
+
+    private static final String ERROR_RUTA_REPETIDA = "ERROR EN CONVERSOR PHP: " +
+            "No se puede generar la clase '%s' porque su archivo, '%s.php', ya corresponde a %s. " +
+            "Las clases con el mismo nombre en distintos paquetes necesitan la distribución " +
+            "POR_PAQUETE o FRAGMENTADA.";
+
+    private static final int TAMANO_BUFFER_ENTRADA = 64 * 1024;
+
+    // Propiedad del analizador XML del JDK, y código de su mensaje de error, para el límite
+    // de expansión de entidades
+    private static final String PROPIEDAD_EXPANSION_ENTIDADES =
+            "http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit";
+    private static final String CODIGO_EXPANSION_ENTIDADES = "JAXP00010001";
+
+    private static final String ERROR_INTERRUPCION = "ERROR CRÍTICO EN CONVERSOR PHP: " +
+            "Conversión cancelada. El proceso fue interrumpido.";
+
+    // Marcas de fin de las etapas de la conversión en flujo
+    private static final Clase FIN_DE_CLASES = new Clase();
+    private static final ArchivoPHP FIN_DE_ARCHIVOS = new ArchivoPHP("", "");
+
     /**
      * Convierte un diagrama de clases UML, exportado como código XMI por StarUML, a código PHP.
      *
@@ -47,73 +87,886 @@ public final class GeneradorPHP {
      *                               errores o está incompleto.
      */
     public final Map<String, String> generarPHP(String rutaAbsolutaDelArchivo) throws GeneradorPHPException {
+        return generarPHP(rutaAbsolutaDelArchivo, new OpcionesGeneracion());
+    }
+
+    /**
+     * Convierte un diagrama de clases UML, exportado como código XMI por StarUML, a código PHP
+     * según las opciones indicadas.
+     *
+     * <p>Si las opciones contienen una selección de clases, solo se generan las clases
+     * seleccionadas y las que estas alcanzan por medio de asociaciones. Una primera lectura
+     * del archivo obtiene solo el ID y el nombre de cada clase y los extremos de cada
+     * asociación, sin construir ningún DOM; la segunda construye y analiza únicamente los
+     * elementos de las clases seleccionadas, y termina en cuanto las ha leído todas.
+     *
+     * @param rutaAbsolutaDelArchivo Ruta absoluta del archivo que contiene el código XMI a convertir.
+     * @param opciones               Opciones de la conversión.
+     * @return <p>Map con las clases generadas a partir del código XMI del archivo.
+     * <p>Map vacío si el archivo no existe o hubo error en el análisis del código XMI.
+     * @throws GeneradorPHPException Si el archivo no contiene código XMI, el código XMI tiene
+     *                               errores o está incompleto, algún elemento de la selección
+     *                               no coincide con ninguna clase, o dos clases se generarían
+     *                               en el mismo archivo según la distribución elegida.
+     */
+    public final Map<String, String> generarPHP(String rutaAbsolutaDelArchivo, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
+        return generarPHP(aRuta(rutaAbsolutaDelArchivo), opciones);
+    }
+
+    /**
+     * Convierte el diagrama de clases UML contenido en el archivo. El archivo puede estar
+     * comprimido con gzip, lo que se detecta por su contenido y no por su extensión.
+     *
+     * @param archivo Archivo que contiene el código XMI a convertir.
+     * @return Map con todas las clases encontradas en el código XMI del archivo.
+     * @throws GeneradorPHPException Si el archivo no existe, no contiene código XMI, el código
+     *                               XMI tiene errores o está incompleto.
+     * @see #generarPHP(String, OpcionesGeneracion)
+     */
+    public final Map<String, String> generarPHP(Path archivo) throws GeneradorPHPException {
+        return generarPHP(archivo, new OpcionesGeneracion());
+    }
+
+    /**
+     * Convierte el diagrama de clases UML contenido en el archivo, según las opciones indicadas.
+     * El archivo puede estar comprimido con gzip, lo que se detecta por su contenido y no por
+     * su extensión.
+     *
+     * @param archivo  Archivo que contiene el código XMI a convertir.
+     * @param opciones Opciones de la conversión.
+     * @return Map con las clases generadas a partir del código XMI del archivo.
+     * @throws GeneradorPHPException Si el archivo no existe, no contiene código XMI, el código
+     *                               XMI tiene errores o está incompleto.
+     * @see #generarPHP(String, OpcionesGeneracion)
+     */
+    public final Map<String, String> generarPHP(Path archivo, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
+        if (opciones.getSeleccion().isEmpty()) {
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                return generarPHP(entrada, opciones);
+            } catch (IOException e) {
+                throw new GeneradorPHPException(ERROR_IO, e);
+            }
+        }
+
+        Optional<EstructuraXMI> estructura = explorar(archivo, opciones.getLimites());
+        if (!estructura.isPresent()) {
+            return new HashMap<>();
+        }
+        Set<String> idsSeleccionados = seleccionarIds(estructura.get().nombresPorId,
+                estructura.get().asociaciones, opciones.getSeleccion());
+        List<Clase> clases = new ArrayList<>();
+        extraerClases(archivo, estructura.get(), idsSeleccionados, opciones.getLimites(), clases::add);
+        modificarClasesAfectadasPorAsociaciones(estructura.get().asociaciones, clases);
+        return generarCodigoDeClases(clases, opciones);
+    }
+
+    /**
+     * Convierte el diagrama de clases UML leído del canal.
+     *
+     * @param canal Canal del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *              Se lee hasta el final, pero no se cierra.
+     * @return Map con todas las clases encontradas en el código XMI.
+     * @throws GeneradorPHPException Si el canal no puede leerse, no contiene código XMI, o el
+     *                               código XMI tiene errores o está incompleto.
+     * @see #generarPHP(String, OpcionesGeneracion)
+     */
+    public final Map<String, String> generarPHP(ReadableByteChannel canal) throws GeneradorPHPException {
+        return generarPHP(canal, new OpcionesGeneracion());
+    }
+
+    /**
+     * Convierte el diagrama de clases UML leído del canal, según las opciones indicadas.
+     *
+     * @param canal    Canal del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *                 Se lee hasta el final, pero no se cierra.
+     * @param opciones Opciones de la conversión.
+     * @return Map con las clases generadas a partir del código XMI.
+     * @throws GeneradorPHPException Si el canal no puede leerse, no contiene código XMI, o el
+     *                               código XMI tiene errores o está incompleto.
+     * @see #generarPHP(String, OpcionesGeneracion)
+     */
+    public final Map<String, String> generarPHP(ReadableByteChannel canal, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
+        return generarPHP(Channels.newInputStream(canal), opciones);
+    }
+
+    /**
+     * Convierte el diagrama de clases UML leído del flujo.
+     *
+     * @param entrada Flujo del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *                Se lee hasta el final, pero no se cierra.
+     * @return Map con todas las clases encontradas en el código XMI.
+     * @throws GeneradorPHPException Si el flujo no puede leerse, no contiene código XMI, o el
+     *                               código XMI tiene errores o está incompleto.
+     * @see #generarPHP(String, OpcionesGeneracion)
+     */
+    public final Map<String, String> generarPHP(InputStream entrada) throws GeneradorPHPException {
+        return generarPHP(entrada, new OpcionesGeneracion());
+    }
+
+    /**
+     * Convierte el diagrama de clases UML leído del flujo, según las opciones indicadas.
+     *
+     * <p>Si el contenido está comprimido con gzip, se descomprime mientras se lee, sin crear
+     * ninguna copia descomprimida en disco.
+     *
+     * <p>Un flujo solo puede leerse una vez, por lo que, a diferencia de un archivo, con una
+     * selección de clases se extraen todas las clases y la selección se aplica después.
+     *
+     * @param entrada  Flujo del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *                 Se lee hasta el final, pero no se cierra.
+     * @param opciones Opciones de la conversión.
+     * @return <p>Map con las clases generadas a partir del código XMI.
+     * <p>Map vacío si hubo error en el análisis del código XMI.
+     * @throws GeneradorPHPException Si el flujo no puede leerse, está comprimido en un formato no
+     *                               soportado, no contiene código XMI, el código XMI tiene
+     *                               errores o está incompleto, o algún elemento de la selección
+     *                               no coincide con ninguna clase.
+     * @throws LimiteExcedidoException Si el contenido o el código generado supera alguno de los
+     *                                 límites de las opciones.
+     */
+    public final Map<String, String> generarPHP(InputStream entrada, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
+        Optional<ModeloXMI> modelo = extraerModelo(entrada, opciones.getLimites());
+        if (!modelo.isPresent()) {
+            return new HashMap<>();
+        }
+        List<Clase> clases = modelo.get().getClases();
+        if (!opciones.getSeleccion().isEmpty()) {
+            clases = seleccionarClases(clases, modelo.get().getAsociaciones(), opciones.getSeleccion());
+        }
+        modificarClasesAfectadasPorAsociaciones(modelo.get().getAsociaciones(), clases);
+        return generarCodigoDeClases(clases, opciones);
+    }
+
+    /**
+     * Convierte el diagrama de clases UML del archivo XMI y guarda el modelo resultante, con
+     * sus asociaciones ya resueltas, en una instantánea binaria. Una instantánea permite volver
+     * a generar el código PHP, con otras opciones, sin volver a analizar el código XMI.
+     *
+     * @param archivo           Archivo que contiene el código XMI, comprimido con gzip o sin comprimir.
+     * @param archivoInstantanea Archivo donde se guardará la instantánea. Si existe, se reemplaza.
+     * @throws GeneradorPHPException Si el archivo XMI no puede convertirse o la instantánea no
+     *                               puede escribirse.
+     * @see #generarInstantanea(Path, Path, LimitesConversion)
+     * @see #generarPHPDesdeInstantanea(Path, OpcionesGeneracion)
+     */
+    public final void generarInstantanea(Path archivo, Path archivoInstantanea) throws GeneradorPHPException {
+        generarInstantanea(archivo, archivoInstantanea, new LimitesConversion());
+    }
+
+    /**
+     * Convierte el diagrama de clases UML del archivo XMI, con los límites indicados, y guarda
+     * el modelo resultante en una instantánea binaria.
+     *
+     * @param archivo            Archivo que contiene el código XMI, comprimido con gzip o sin comprimir.
+     * @param archivoInstantanea Archivo donde se guardará la instantánea. Si existe, se reemplaza.
+     * @param limites            Límites de la lectura del archivo XMI.
+     * @throws GeneradorPHPException Si el archivo XMI no puede convertirse o la instantánea no
+     *                               puede escribirse.
+     * @throws LimiteExcedidoException Si el archivo XMI supera alguno de los límites. La
+     *                                 instantánea no se escribe.
+     * @see #generarPHPDesdeInstantanea(Path, OpcionesGeneracion)
+     */
+    public final void generarInstantanea(Path archivo, Path archivoInstantanea, LimitesConversion limites)
+            throws GeneradorPHPException {
+        List<Clase> clases = new ArrayList<>();
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            Optional<ModeloXMI> modelo = extraerModelo(entrada, limites);
+            if (modelo.isPresent()) {
+                clases = modelo.get().getClases();
+                modificarClasesAfectadasPorAsociaciones(modelo.get().getAsociaciones(), clases);
+            }
+        } catch (IOException e) {
+            throw new GeneradorPHPException(ERROR_IO, e);
+        }
+
+        try (OutputStream salida = Files.newOutputStream(archivoInstantanea)) {
+            InstantaneaModelo.escribir(clases, salida);
+        } catch (IOException e) {
+            throw new GeneradorPHPException("ADVERTENCIA CONVERSOR PHP: " +
+                    "No se pudo escribir la instantánea del modelo en " + archivoInstantanea + ".", e);
+        }
+    }
+
+    /**
+     * Genera el código PHP a partir de una instantánea creada por
+     * {@code generarInstantanea(Path, Path)}, sin analizar ningún código XMI.
+     *
+     * @param archivoInstantanea Archivo que contiene la instantánea del modelo.
+     * @param opciones           Opciones de la conversión.
+     * @return Map con las clases generadas, igual al que devolvería
+     * {@code generarPHP(Path, OpcionesGeneracion)} con el archivo XMI original.
+     * @throws GeneradorPHPException Si la instantánea no existe, no puede leerse, fue creada por
+     *                               una versión incompatible del conversor, o algún elemento de
+     *                               la selección no coincide con ninguna clase.
+     */
+    public final Map<String, String> generarPHPDesdeInstantanea(Path archivoInstantanea, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
+        List<Clase> clases;
+        try (InputStream entrada = Files.newInputStream(archivoInstantanea)) {
+            clases = InstantaneaModelo.leer(entrada);
+        } catch (IOException e) {
+            throw new GeneradorPHPException(ERROR_IO, e);
+        }
+        opciones.getLimites().verificarClases(clases.size());
+
+        if (!opciones.getSeleccion().isEmpty()) {
+            clases = seleccionarClases(clases, opciones.getSeleccion());
+        }
+        return generarCodigoDeClases(clases, opciones);
+    }
+
+    /**
+     * Extrae las clases y asociaciones de un archivo XMI sin resolver las asociaciones, para
+     * poder resolverlas junto con las de otros archivos.
+     *
+     * @param archivo Archivo que contiene el código XMI, comprimido con gzip o sin comprimir.
+     * @param limites Límites de la lectura del archivo.
+     * @return Las clases y asociaciones del archivo. Vacío si el archivo no tiene prólogo XML.
+     * @throws GeneradorPHPException Si el archivo no existe, no contiene código XMI, el código
+     *                               XMI tiene errores o está incompleto, o supera alguno de los
+     *                               límites.
+     */
+    ModeloXMI leerModelo(Path archivo, LimitesConversion limites) throws GeneradorPHPException {
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            return extraerModelo(entrada, limites).orElse(new ModeloXMI(new ArrayList<>(), new ArrayList<>()));
+        } catch (IOException e) {
+            throw new GeneradorPHPException(ERROR_IO, e);
+        }
+    }
+
+    /**
+     * Extrae todas las clases y asociaciones del código XMI en una sola lectura, sin resolver
+     * las asociaciones.
+     *
+     * @param entrada Flujo del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *                No se cierra.
+     * @param limites Límites de la lectura del código XMI.
+     * @return {@code Optional} con las clases y asociaciones, en el orden del código XMI.
+     * <p>{@code Optional} vacío, si el contenido no tiene prólogo XML.
+     * @throws GeneradorPHPException Si el código XMI no puede leerse o supera alguno de los límites.
+     */
+    private Optional<ModeloXMI> extraerModelo(InputStream entrada, LimitesConversion limites)
+            throws GeneradorPHPException {
+        List<Clase> clases = new ArrayList<>();
+        List<Asociacion> asociaciones = new ArrayList<>();
+        LectorXMI lector = new LectorXMI(limites) {
+            @Override
+            void clase(Element elementoDeClase, Element unidad) throws SAXException {
+                verificarClases(limites, clases.size() + 1);
+                clases.add(obtenerClase(elementoDeClase));
+            }
+
+            @Override
+            void asociacion(Element elementoOwnedMember) {
+                asociaciones.add(obtenerAsociacion(elementoOwnedMember));
+            }
+        };
+        if (!leerXMI(entrada, limites, lector)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ModeloXMI(clases, asociaciones));
+    }
+
+    /**
+     * Primera lectura de un archivo con selección de clases: obtiene el ID y el nombre de cada
+     * clase y los extremos de cada asociación, sin analizar atributos, métodos ni parámetros.
+     *
+     * @param archivo Archivo que contiene el código XMI, comprimido con gzip o sin comprimir.
+     * @param limites Límites de la lectura del archivo.
+     * @return {@code Optional} con la estructura del archivo.
+     * <p>{@code Optional} vacío, si el archivo no tiene prólogo XML.
+     * @throws GeneradorPHPException Si el archivo no existe, no puede leerse o supera alguno de
+     *                               los límites.
+     */
+    private Optional<EstructuraXMI> explorar(Path archivo, LimitesConversion limites) throws GeneradorPHPException {
+        EstructuraXMI estructura = new EstructuraXMI();
+        LectorXMI lector = new LectorXMI(limites) {
+            @Override
+            void clase(Element elementoDeClase, Element unidad) throws SAXException {
+                verificarClases(limites, ++estructura.clases);
+                String id = elementoDeClase.getAttribute("xmi:id");
+                estructura.nombresPorId.putIfAbsent(id, elementoDeClase.getAttribute("name"));
+                estructura.unidadPorId.putIfAbsent(id, unidad.getAttribute("xmi:id"));
+            }
+
+            @Override
+            void asociacion(Element elementoOwnedMember) {
+                estructura.asociaciones.add(obtenerAsociacion(elementoOwnedMember));
+            }
+        };
+        lector.setSoloEstructura(true);
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            return leerXMI(entrada, limites, lector) ? Optional.of(estructura) : Optional.empty();
+        } catch (IOException e) {
+            throw new GeneradorPHPException(ERROR_IO, e);
+        }
+    }
+
+    /**
+     * Segunda lectura de un archivo ya explorado: entrega cada clase en cuanto termina su
+     * elemento. Con una selección, no construye el DOM del resto de clases y termina en cuanto
+     * las ha extraído todas.
+     *
+     * @param archivo    Archivo ya explorado por {@code explorar(Path, LimitesConversion)}.
+     * @param estructura Estructura del archivo.
+     * @param ids        ID de las clases a extraer. {@code null} para extraer todas.
+     * @param limites    Límites de la lectura del archivo.
+     * @param receptor   Receptor de cada clase, en el orden en que aparecen en el archivo. De
+     *                   las clases seleccionadas con un ID repetido, solo recibe la primera.
+     * @throws GeneradorPHPException Si el archivo no puede leerse, el receptor falla o la lectura
+     *                               es interrumpida.
+     */
+    private void extraerClases(Path archivo, EstructuraXMI estructura, Set<String> ids,
+                               LimitesConversion limites, ReceptorDeClases receptor) throws GeneradorPHPException {
+        Set<String> pendientes = ids != null ? new HashSet<>(ids) : null;
+        LectorXMI lector = new LectorXMI(limites) {
+            @Override
+            void clase(Element elementoDeClase, Element unidad) throws SAXException {
+                if (pendientes != null && !pendientes.remove(elementoDeClase.getAttribute("xmi:id"))) {
+                    return;
+                }
+                try {
+                    receptor.recibir(obtenerClase(elementoDeClase));
+                } catch (GeneradorPHPException | InterruptedException e) {
+                    throw new SAXException(e);
+                }
+                if (pendientes != null && pendientes.isEmpty()) {
+                    terminar();
+                }
+            }
+        };
+        if (ids != null) {
+            lector.setUnidadesALeer(estructura.unidadesDe(ids));
+        }
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            leerXMI(entrada, limites, lector);
+        } catch (IOException e) {
+            throw new GeneradorPHPException(ERROR_IO, e);
+        }
+    }
+
+    /**
+     * Receptor de cada clase extraída del archivo.
+     */
+    private interface ReceptorDeClases {
+        void recibir(Clase clase) throws GeneradorPHPException, InterruptedException;
+    }
+
+    /**
+     * Extracción de las clases de un archivo, que entrega cada clase a un receptor.
+     */
+    private interface ExtraccionDeClases {
+        void extraer(ReceptorDeClases receptor) throws GeneradorPHPException, InterruptedException;
+    }
+
+    /**
+     * @param limites Límites de la conversión.
+     * @param clases  Cantidad de clases leídas hasta ahora.
+     * @throws SAXException Con la causa {@link LimiteExcedidoException}, si se supera el límite de clases.
+     */
+    private static void verificarClases(LimitesConversion limites, int clases) throws SAXException {
+        try {
+            limites.verificarClases(clases);
+        } catch (LimiteExcedidoException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * ID, nombre y unidad de cada clase de un archivo XMI, y sus asociaciones.
+     */
+    private static final class EstructuraXMI {
+        private final Map<String, String> nombresPorId = new LinkedHashMap<>();
+        private final Map<String, String> unidadPorId = new HashMap<>();
+        private final List<Asociacion> asociaciones = new ArrayList<>();
+        private int clases;
+
+        /**
+         * @param ids ID de clases del archivo.
+         * @return ID de las unidades que contienen a esas clases.
+         */
+        private Set<String> unidadesDe(Set<String> ids) {
+            Set<String> unidades = new HashSet<>();
+            for (String id : ids) {
+                unidades.add(unidadPorId.get(id));
+            }
+            return unidades;
+        }
+    }
+
+    /**
+     * @param clases   Las clases a convertir, con los atributos de sus asociaciones ya agregados.
+     * @param opciones Opciones de la conversión.
+     * @return Map con el código de cada clase y de los archivos auxiliares.
+     * @throws GeneradorPHPException Si dos clases se generarían en el mismo archivo.
+     * @throws LimiteExcedidoException Si el código generado supera el límite de bytes de salida.
+     */
+    Map<String, String> generarCodigoDeClases(List<Clase> clases, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
         Map<String, String> clasesFinales = new HashMap<>();
+        asignarRutasDeArchivos(clases, opciones);
+
+        clasesFinales.put("Main", generarMain(clases, opciones));
+        if (opciones.getCarga() != ModoCarga.REQUIRE_ONCE) {
+            clasesFinales.put("autoload", generarAutoload(clases, opciones));
+        }
+        if (opciones.generaPreload()) {
+            clasesFinales.put("preload", generarPreload(clases));
+        }
+        long bytesGenerados = 0;
+        for (String codigo : clasesFinales.values()) {
+            bytesGenerados = opciones.getLimites().verificarSalida(bytesGenerados, longitudUTF8(codigo));
+        }
+        for (Clase clase : clases) {
+            String codigo = clase.generarCodigo(opciones);
+            bytesGenerados = opciones.getLimites().verificarSalida(bytesGenerados, longitudUTF8(codigo));
+            clasesFinales.put(clase.getRutaArchivo(), codigo);
+        }
+        return clasesFinales;
+    }
+
+    /**
+     * @param codigo Código generado.
+     * @return Cantidad de bytes del código codificado en UTF-8, sin codificarlo.
+     */
+    private static long longitudUTF8(String codigo) {
+        long bytes = codigo.length();
+        for (int i = 0; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (c >= 0x800) {
+                // Los pares sustitutos ocupan 4 bytes en total, 2 por cada mitad
+                bytes += 2;
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Convierte un diagrama de clases UML, exportado como código XMI por StarUML, a código PHP,
+     * entregando cada archivo al receptor tan pronto como está generado.
+     *
+     * <p>La extracción de las clases, la generación de su código y la entrega al receptor se
+     * ejecutan como etapas concurrentes, unidas por colas de capacidad limitada. Una primera
+     * lectura del archivo, que no construye ningún DOM, obtiene las asociaciones. Durante la
+     * segunda, cada clase pasa a la etapa de generación en cuanto termina su elemento, y se
+     * genera en cuanto todas las clases con las que está asociada han sido extraídas, sin
+     * esperar al resto del archivo. El script 'Main', y los archivos 'autoload' y 'preload' si
+     * se piden, se entregan al final.
+     *
+     * <p>El receptor se invoca siempre desde el hilo que llama a este método. El código generado
+     * es el mismo que el de {@code generarPHP(String, OpcionesGeneracion)}, aunque el orden de
+     * entrega de las clases puede diferir del orden del archivo.
+     *
+     * @param rutaAbsolutaDelArchivo Ruta absoluta del archivo que contiene el código XMI a convertir.
+     * @param opciones               Opciones de la conversión.
+     * @param receptor               Receptor de cada uno de los archivos generados.
+     * @throws GeneradorPHPException Si el archivo no contiene código XMI, el código XMI tiene
+     *                               errores o está incompleto, el receptor falla o la conversión
+     *                               es interrumpida.
+     */
+    public final void generarPHPEnFlujo(String rutaAbsolutaDelArchivo, OpcionesGeneracion opciones,
+                                        ReceptorArchivoPHP receptor) throws GeneradorPHPException {
+        Path archivo = aRuta(rutaAbsolutaDelArchivo);
+        Optional<EstructuraXMI> estructura = explorar(archivo, opciones.getLimites());
+        if (!estructura.isPresent()) {
+            return;
+        }
+
+        Set<String> idsAConvertir = null;
+        int cantidadDeClases = estructura.get().clases;
+        if (!opciones.getSeleccion().isEmpty()) {
+            idsAConvertir = seleccionarIds(estructura.get().nombresPorId, estructura.get().asociaciones,
+                    opciones.getSeleccion());
+            cantidadDeClases = idsAConvertir.size();
+        }
+        Set<String> idsSeleccionados = idsAConvertir;
+        ResolutorDeAsociaciones resolutor = new ResolutorDeAsociaciones(estructura.get().asociaciones,
+                idsSeleccionados != null ? idsSeleccionados : estructura.get().nombresPorId.keySet());
+
+        convertirEnFlujo(receptorDeClases -> extraerClases(archivo, estructura.get(), idsSeleccionados,
+                opciones.getLimites(), receptorDeClases), cantidadDeClases, resolutor, opciones, receptor);
+    }
+
+    /**
+     * Convierte el diagrama de clases UML leído del flujo, entregando cada archivo al receptor
+     * tan pronto como está generado.
+     *
+     * <p>Un flujo solo puede leerse una vez, y hasta terminar de leerlo no se conocen todas las
+     * asociaciones de cada clase, por lo que la generación empieza cuando termina la lectura.
+     * Con un archivo, {@code generarPHPEnFlujo(String, OpcionesGeneracion, ReceptorArchivoPHP)}
+     * genera cada clase mientras el archivo se sigue leyendo.
+     *
+     * @param entrada  Flujo del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *                 Se lee hasta el final, pero no se cierra.
+     * @param opciones Opciones de la conversión.
+     * @param receptor Receptor de cada uno de los archivos generados.
+     * @throws GeneradorPHPException Si el flujo no puede leerse, no contiene código XMI, el código
+     *                               XMI tiene errores o está incompleto, dos clases se generarían
+     *                               en el mismo archivo, el receptor falla o la conversión es
+     *                               interrumpida.
+     * @throws LimiteExcedidoException Si el contenido o el código generado supera alguno de los
+     *                                 límites de las opciones. Los archivos ya entregados al
+     *                                 receptor no se retiran.
+     * @see #generarPHPEnFlujo(String, OpcionesGeneracion, ReceptorArchivoPHP)
+     */
+    public final void generarPHPEnFlujo(InputStream entrada, OpcionesGeneracion opciones,
+                                        ReceptorArchivoPHP receptor) throws GeneradorPHPException {
+        Optional<ModeloXMI> modelo = extraerModelo(entrada, opciones.getLimites());
+        if (!modelo.isPresent()) {
+            return;
+        }
+
+        List<Clase> clases = modelo.get().getClases();
+        if (!opciones.getSeleccion().isEmpty()) {
+            clases = seleccionarClases(clases, modelo.get().getAsociaciones(), opciones.getSeleccion());
+        }
+        List<Clase> clasesExtraidasDelArchivo = clases;
+
+        Set<String> idsDeClases = new HashSet<>();
+        for (Clase c : clases) {
+            idsDeClases.add(c.getId());
+        }
+        ResolutorDeAsociaciones resolutor = new ResolutorDeAsociaciones(modelo.get().getAsociaciones(), idsDeClases);
+
+        convertirEnFlujo(receptorDeClases -> {
+            for (Clase c : clasesExtraidasDelArchivo) {
+                receptorDeClases.recibir(c);
+            }
+        }, clases.size(), resolutor, opciones, receptor);
+    }
+
+    /**
+     * Ejecuta las etapas de la conversión en flujo y entrega los archivos al receptor en el
+     * hilo que llama.
+     *
+     * @param extraccion       Primera etapa: extrae cada clase del archivo.
+     * @param cantidadDeClases Cantidad de clases que entregará la extracción.
+     * @param resolutor        Resolutor de las asociaciones entre las clases extraídas.
+     * @param opciones         Opciones de la conversión.
+     * @param receptor         Receptor de cada uno de los archivos generados.
+     * @throws GeneradorPHPException Si alguna etapa o el receptor falla, o la conversión es
+     *                               interrumpida.
+     */
+    private void convertirEnFlujo(ExtraccionDeClases extraccion, int cantidadDeClases,
+                                  ResolutorDeAsociaciones resolutor, OpcionesGeneracion opciones,
+                                  ReceptorArchivoPHP receptor) throws GeneradorPHPException {
+        int niveles = DistribucionArchivos.nivelesNecesarios(cantidadDeClases, opciones.getMaxEntradasPorDirectorio());
 
+        BlockingQueue<Clase> clasesExtraidas = new ArrayBlockingQueue<>(opciones.getCapacidadDeCola());
+        BlockingQueue<ArchivoPHP> archivosGenerados = new ArrayBlockingQueue<>(opciones.getCapacidadDeCola());
+        AtomicReference<Throwable> errorEnEtapa = new AtomicReference<>();
+        ExecutorService etapas = Executors.newFixedThreadPool(2);
         try {
-            // Apertura y creación del DOM
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document documento = dBuilder.parse(new File(rutaAbsolutaDelArchivo));
-            documento.getDocumentElement().normalize();
-
-            // Nodos de todos los tag que contienen la información básica necesaria para validar el código.
-            // En realidad solo es uno. Esta es la manera más fácil de obtenerlo.
-            NodeList nodosDelTagDocumentation = documento.getElementsByTagName("xmi:Documentation");
-
-            if ((nodosDelTagDocumentation.getLength() > 0)) {
-                // Si se encontraron los tags 'Documentation', se procede a verificar que contenga
-                // los valores esperados para ser identificado como exportado por StarUML.
-                // En caso contrario, se lanza una excepción con un mensaje acorde al error que
-                // se encontró.
-                //
-                // Si no hubo errores en la verificación, se procede inmediatamente al proceso
-                // de análisis y extracción de la información de las clases.
-                //
-                // El análisis fallará sí la estructura del documento posee inconsistencias en el código,
-                // tales como:
-                //
-                // - Falta de tags de cierre (más común).
-                // - El nombre del tag no concuerda con su respectivo tag de apertura o cierre.
-                // - Presencia de caracteres extraños.
-                //
-                // Si esto ocurre, se lanzará una excepción con un mensaje indicando que
-                // el código posee inconsistencias.
-
-                // Validando el archivo
-                validarArchivo(nodosDelTagDocumentation);
-
-                // Nodos de todos los tags referentes a clases y asociaciones
-                NodeList nodosDelTagPackageElement = documento.getElementsByTagName("packagedElement");
-                NodeList nodosDelTagOwnedMember = documento.getElementsByTagName("ownedMember");
-
-                // Creando representacion de cada una de las clases y asociaciones,
-                // y modificar las clases afectadas
-                List<Clase> clases = obtenerClases(nodosDelTagPackageElement);
-                List<Asociacion> asociaciones = obtenerAsociaciones(nodosDelTagOwnedMember);
-                modificarClasesAfectadasPorAsociaciones(asociaciones, clases);
-
-                clasesFinales.put("Main", generarMain(clases));
-                for (Clase clase : clases) {
-                    clasesFinales.put(clase.getNombre(), clase.generarCodigo());
+            // Etapa 1: extracción de la información de cada clase
+            etapas.execute(() -> {
+                try {
+                    Map<String, String> rutasOcupadas = rutasReservadas(opciones);
+                    extraccion.extraer(clase -> {
+                        asignarRuta(clase, niveles, rutasOcupadas, opciones);
+                        clasesExtraidas.put(clase);
+                    });
+                } catch (InterruptedException e) {
+                    errorEnEtapa.compareAndSet(null, e);
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    // Cualquier fallo, incluidos los Error, impide entregar un 'Main' incompleto
+                    errorEnEtapa.compareAndSet(null, e);
+                } finally {
+                    ponerFin(clasesExtraidas, FIN_DE_CLASES);
                 }
-            } else {
-                // Si no se encontró ningún tag, se asume que es código XMI pero no con
-                // la estructura esperada.
-                throw new GeneradorPHPException(ERROR_DOCUMENTO_DESCONOCIDO);
+            });
+
+            // Etapa 2: resolución de asociaciones y generación del código de las clases finales
+            etapas.execute(() -> {
+                try {
+                    List<Clase> clases = new ArrayList<>(cantidadDeClases);
+                    long bytesGenerados = 0;
+                    Clase clase;
+                    while ((clase = clasesExtraidas.take()) != FIN_DE_CLASES) {
+                        clases.add(clase);
+                        for (Clase claseFinal : resolutor.registrar(clase)) {
+                            ByteBuffer codigo = claseFinal.generarCodigoUTF8(opciones);
+                            bytesGenerados = opciones.getLimites().verificarSalida(bytesGenerados, codigo.remaining());
+                            archivosGenerados.put(new ArchivoPHP(claseFinal.getRutaArchivo(), codigo));
+                        }
+                    }
+                    if (errorEnEtapa.get() == null) {
+                        List<ArchivoPHP> auxiliares = new ArrayList<>();
+                        auxiliares.add(new ArchivoPHP("Main", generarMain(clases, opciones)));
+                        if (opciones.getCarga() != ModoCarga.REQUIRE_ONCE) {
+                            auxiliares.add(new ArchivoPHP("autoload", generarAutoload(clases, opciones)));
+                        }
+                        if (opciones.generaPreload()) {
+                            auxiliares.add(new ArchivoPHP("preload", generarPreload(clases)));
+                        }
+                        for (ArchivoPHP auxiliar : auxiliares) {
+                            bytesGenerados = opciones.getLimites().verificarSalida(bytesGenerados,
+                                    longitudUTF8(auxiliar.getContenido()));
+                        }
+                        for (ArchivoPHP auxiliar : auxiliares) {
+                            archivosGenerados.put(auxiliar);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    errorEnEtapa.compareAndSet(null, e);
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    errorEnEtapa.compareAndSet(null, e);
+                } finally {
+                    ponerFin(archivosGenerados, FIN_DE_ARCHIVOS);
+                }
+            });
+
+            // Etapa 3: entrega de los archivos, en el hilo que llama
+            ArchivoPHP archivo;
+            while ((archivo = archivosGenerados.take()) != FIN_DE_ARCHIVOS) {
+                receptor.recibir(archivo);
+            }
+            Throwable error = errorEnEtapa.get();
+            if (error instanceof GeneradorPHPException) {
+                throw (GeneradorPHPException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            } else if (error instanceof InterruptedException) {
+                throw new GeneradorPHPException(ERROR_INTERRUPCION, error);
+            } else if (error != null) {
+                throw new GeneradorPHPException(ERROR_ANALISIS, error);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeneradorPHPException(ERROR_INTERRUPCION, e);
+        } finally {
+            // Si el receptor falló, las etapas que sigan bloqueadas en las colas se interrumpen
+            etapas.shutdownNow();
+        }
+    }
+
+    /**
+     * @param cola Cola en la que se pondrá la marca de fin.
+     * @param fin  Marca de fin de la etapa.
+     */
+    private static <T> void ponerFin(BlockingQueue<T> cola, T fin) {
+        try {
+            cola.put(fin);
+        } catch (InterruptedException e) {
+            // La etapa siguiente también fue interrumpida, ya no espera la marca
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param rutaAbsolutaDelArchivo Ruta absoluta de un archivo.
+     * @return La misma ruta como {@code Path}.
+     * @throws GeneradorPHPException Si la ruta no es válida.
+     */
+    private Path aRuta(String rutaAbsolutaDelArchivo) throws GeneradorPHPException {
+        try {
+            return Paths.get(rutaAbsolutaDelArchivo);
+        } catch (InvalidPathException e) {
+            throw new GeneradorPHPException(ERROR_IO, e);
+        }
+    }
+
+    /**
+     * Lee el código XMI, entregando sus clases y asociaciones al lector a medida que se leen,
+     * y verifica que haya sido exportado por StarUML.
+     *
+     * @param entrada Flujo del que se lee el código XMI, comprimido con gzip o sin comprimir.
+     *                No se cierra.
+     * @param limites Límites de la lectura del código XMI.
+     * @param lector  Lector que recibe las clases y asociaciones.
+     * @return {@code false} si el contenido no tiene prólogo XML.
+     * @throws GeneradorPHPException Si el flujo no puede leerse, está comprimido en un formato
+     *                               no soportado, no contiene código XMI exportado por StarUML,
+     *                               el código XMI tiene errores, supera alguno de los límites, o
+     *                               el lector cancela la lectura con una {@code GeneradorPHPException}.
+     */
+    private boolean leerXMI(InputStream entrada, LimitesConversion limites, LectorXMI lector)
+            throws GeneradorPHPException {
+        try (InputStream contenido = new EntradaLimitada(descomprimir(new EntradaSinCierre(entrada)),
+                limites.getMaxBytesEntrada())) {
+            // Las clases se entregan a partir de los eventos SAX, sin construir el DOM del
+            // archivo, y la lectura se cancela en cuanto se supere algún límite.
+            SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+            try {
+                parser.setProperty(PROPIEDAD_EXPANSION_ENTIDADES, String.valueOf(limites.getMaxExpansionEntidades()));
+            } catch (SAXNotRecognizedException | SAXNotSupportedException e) {
+                // No es el analizador XML del JDK, que aplica su propio límite por defecto
             }
+            parser.parse(contenido, lector);
         } catch (IOException e) {
+            relanzarErrorDeConversion(e, limites);
             throw new GeneradorPHPException(ERROR_IO, e);
         } catch (ParserConfigurationException | SAXException e) {
+            if (lector.terminoAntes()) {
+                // El lector ya obtuvo todo lo que necesitaba
+                return true;
+            }
+            relanzarErrorDeConversion(e, limites);
             if (!e.getMessage().contains("prólogo")) {
                 // Si no contiene la palabra 'prologo' en el mensaje de la excepción,
                 // es un error de análisis-extracción.
                 throw new GeneradorPHPException(ERROR_ANALISIS, e);
             }
+            return false;
+        }
+
+        // Nodos de todos los tag que contienen la información básica necesaria para validar el código.
+        // En realidad solo es uno.
+        List<Element> elementosDocumentation = lector.getDocumentacion();
+        if (!elementosDocumentation.isEmpty()) {
+            // Si se encontraron los tags 'Documentation', se procede a verificar que contenga
+            // los valores esperados para ser identificado como exportado por StarUML.
+            // En caso contrario, se lanza una excepción con un mensaje acorde al error que
+            // se encontró.
+            //
+            // El análisis fallará sí la estructura del documento posee inconsistencias en el código,
+            // tales como:
+            //
+            // - Falta de tags de cierre (más común).
+            // - El nombre del tag no concuerda con su respectivo tag de apertura o cierre.
+            // - Presencia de caracteres extraños.
+            //
+            // Si esto ocurre, se lanzará una excepción con un mensaje indicando que
+            // el código posee inconsistencias.
+
+            // Validando el archivo
+            validarArchivo(elementosDocumentation);
+            return true;
+        } else {
+            // Si no se encontró ningún tag, se asume que es código XMI pero no con
+            // la estructura esperada.
+            throw new GeneradorPHPException(ERROR_DOCUMENTO_DESCONOCIDO);
+        }
+    }
+
+    /**
+     * @param e       Excepción producida durante la lectura del código XMI.
+     * @param limites Límites de la lectura.
+     * @throws GeneradorPHPException Si la excepción se debe a que se superó algún límite, a que
+     *                               el lector canceló la lectura con una
+     *                               {@code GeneradorPHPException}, o a una interrupción.
+     */
+    private static void relanzarErrorDeConversion(Exception e, LimitesConversion limites)
+            throws GeneradorPHPException {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof GeneradorPHPException) {
+                throw (GeneradorPHPException) causa;
+            }
+            if (causa instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new GeneradorPHPException(ERROR_INTERRUPCION, causa);
+            }
+            if (causa instanceof SAXParseException && causa.getMessage() != null
+                    && causa.getMessage().contains(CODIGO_EXPANSION_ENTIDADES)) {
+                throw new LimiteExcedidoException(Limite.EXPANSION_DE_ENTIDADES, limites.getMaxExpansionEntidades());
+            }
+        }
+    }
+
+    /**
+     * Detecta, por los primeros bytes del contenido, si está comprimido.
+     *
+     * @param entrada Flujo del que se lee el código XMI.
+     * @return Flujo que entrega el contenido descomprimido.
+     * @throws IOException           Si el flujo no puede leerse.
+     * @throws GeneradorPHPException Si el contenido está comprimido en un formato no soportado.
+     */
+    private InputStream descomprimir(InputStream entrada) throws IOException, GeneradorPHPException {
+        BufferedInputStream bufferizada = new BufferedInputStream(entrada, TAMANO_BUFFER_ENTRADA);
+        byte[] inicio = new byte[4];
+        bufferizada.mark(inicio.length);
+        int leidos = 0;
+        int n;
+        while (leidos < inicio.length && (n = bufferizada.read(inicio, leidos, inicio.length - leidos)) != -1) {
+            leidos += n;
+        }
+        bufferizada.reset();
+
+        if (leidos >= 2 && (inicio[0] & 0xff) == 0x1f && (inicio[1] & 0xff) == 0x8b) {
+            return new GZIPInputStream(bufferizada, TAMANO_BUFFER_ENTRADA);
+        }
+        if (leidos == 4 && (inicio[0] & 0xff) == 0x28 && (inicio[1] & 0xff) == 0xb5
+                && (inicio[2] & 0xff) == 0x2f && (inicio[3] & 0xff) == 0xfd) {
+            throw new GeneradorPHPException(ERROR_COMPRESION_NO_SOPORTADA);
+        }
+        return bufferizada;
+    }
+
+    /**
+     * Flujo que no cierra el flujo original, para no cerrar los flujos que pertenecen
+     * a quien llama al conversor.
+     */
+    private static final class EntradaSinCierre extends FilterInputStream {
+        EntradaSinCierre(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public void close() {
+            // El flujo original lo cierra quien lo abrió
         }
-        return clasesFinales;
     }
 
-    private String generarMain(List<Clase> clases) {
+    /**
+     * Flujo que falla en cuanto se leen más bytes de los permitidos, sin esperar a que el
+     * contenido termine.
+     */
+    private static final class EntradaLimitada extends FilterInputStream {
+        private final long maximo;
+        private long leidos;
+
+        EntradaLimitada(InputStream entrada, long maximo) {
+            super(entrada);
+            this.maximo = maximo;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                contar(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                contar(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long saltados = super.skip(n);
+            contar(saltados);
+            return saltados;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void contar(long n) throws IOException {
+            leidos += n;
+            if (leidos > maximo) {
+                throw new IOException(new LimiteExcedidoException(Limite.BYTES_DE_ENTRADA, maximo));
+            }
+        }
+    }
+
+    private String generarMain(List<Clase> clases, OpcionesGeneracion opciones) {
+        Map<Clase, String> variables = nombresDeVariables(clases);
         StringBuilder sb = new StringBuilder();
         sb.append("<?php").append('\n');
         sb.append('{').append('\n');
@@ -126,8 +979,17 @@ public final class GeneradorPHP {
 
         // Agregar requires
         sb.append("    ").append("// REQUIRES\n");
-        for (Clase c : clases) {
-            sb.append("    ").append("require_once '").append(c.getNombre()).append(".php';").append('\n');
+        if (opciones.getCarga() != ModoCarga.REQUIRE_ONCE) {
+            // Las clases se cargan a demanda al instanciarlas
+            sb.append("    ").append("require_once __DIR__ . '/autoload.php';").append('\n');
+        } else {
+            for (Clase c : clases) {
+                if (opciones.getDistribucion() == DistribucionArchivos.PLANA) {
+                    sb.append("    ").append("require_once '").append(c.getNombre()).append(".php';").append('\n');
+                } else {
+                    sb.append("    ").append("require_once __DIR__ . '/").append(c.getRutaArchivo()).append(".php';").append('\n');
+                }
+            }
         }
         sb.append("\n\n");
 
@@ -135,8 +997,8 @@ public final class GeneradorPHP {
         for (Clase c : clases) {
             if (!c.esInterfaz() && !c.esAbstracta()) {
                 sb.append("    ").append(salidaPHP("INSTANCIANDO CLASE: " + c.getNombre() + "<br>", true)).append('\n');
-                sb.append("    ").append('$').append(c.getNombre().toLowerCase()).append(" = ")
-                        .append("new ").append(c.getNombre()).append("();\n");
+                sb.append("    ").append('$').append(variables.get(c)).append(" = ")
+                        .append("new ").append(nombreParaMain(c, opciones)).append("();\n");
             } else {
                 sb.append("    ").append(salidaPHP("LA CLASE: " + c.getNombre() + ", no puede ser instanciada.<br>", true)).append('\n');
                 sb.append("    ").append(salidaPHP("Es una interfaz o es una clase abstracta.<br>", true)).append("\n\n");
@@ -157,7 +1019,7 @@ public final class GeneradorPHP {
                     if (!a.EsReferenciaAUnaClase()) {
                         sb.append("    ").append(salidaPHP("Usando metodo set para agregar el valor de prueba al atributo: " + a.getNombre().toLowerCase() + "<br>", true)).append('\n');
                         sb.append("    ").append('$');
-                        sb.append(c.getNombre().toLowerCase()).append("->");
+                        sb.append(variables.get(c)).append("->");
                         sb.append("set").append(hacerPalabraPrimeraLetraMayuscula(a.getNombre()));
                         sb.append('(').append("\"dato").append(++contador).append("\")").append(';');
                         sb.append('\n');
@@ -165,9 +1027,9 @@ public final class GeneradorPHP {
                     } else {
                         sb.append("    ").append(salidaPHP("Usando metodo set para agregar un objeto al atributo: " + a.getNombre().toLowerCase() + "<br>", true)).append('\n');
                         sb.append("    ").append('$');
-                        sb.append(c.getNombre().toLowerCase()).append("->");
+                        sb.append(variables.get(c)).append("->");
                         sb.append("set").append(hacerPalabraPrimeraLetraMayuscula(a.getNombre()));
-                        sb.append("($").append(a.getNombre().toLowerCase()).append(");").append('\n');
+                        sb.append("($").append(variables.getOrDefault(a.getClaseReferenciada(), a.getNombre().toLowerCase())).append(");").append('\n');
                         sb.append("    ").append(salidaPHP("Valor usado: El objeto " + a.getNombre() + " previamente creado", true)).append('\n');
                     }
                     sb.append("    ").append(salidaPHP("<br>", true)).append('\n');
@@ -188,7 +1050,7 @@ public final class GeneradorPHP {
                     sb.append("    ").append(salidaPHP("Usando metodo get para obtener el atributo: " + a.getNombre().toLowerCase() + "<br>", true)).append('\n');
                     sb.append("    ").append(salidaPHP("Resultado: ", true)).append('\n');
                     sb.append("    ").append(salidaPHP(
-                            "$" + c.getNombre().toLowerCase(Locale.ROOT) + "->" + "get" +
+                            "$" + variables.get(c) + "->" + "get" +
                                     hacerPalabraPrimeraLetraMayuscula(a.getNombre()) + "()",
                             false)
                     ).append('\n');
@@ -202,6 +1064,114 @@ public final class GeneradorPHP {
         return sb.toString();
     }
 
+    private String generarAutoload(List<Clase> clases, OpcionesGeneracion opciones) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?php").append('\n');
+        if (opciones.getCarga() == ModoCarga.CLASSMAP) {
+            sb.append("// AUTOLOADER: MAPA ESTÁTICO DE CLASES A ARCHIVOS").append('\n');
+            sb.append("spl_autoload_register(function ($clase) {").append('\n');
+            sb.append("    ").append("static $mapa = [").append('\n');
+            for (Clase c : clases) {
+                String nombre = opciones.usaNamespaces() ? c.getNombreCompleto() : c.getNombre();
+                sb.append("        ").append('\'').append(nombre.replace("\\", "\\\\")).append("' => ")
+                        .append("'/").append(c.getRutaArchivo()).append(".php',").append('\n');
+            }
+            sb.append("    ").append("];").append('\n');
+            sb.append("    ").append("if (isset($mapa[$clase])) {").append('\n');
+            sb.append("        ").append("require __DIR__ . $mapa[$clase];").append('\n');
+            sb.append("    ").append('}').append('\n');
+        } else {
+            sb.append("// AUTOLOADER: PSR-4 CON EL DIRECTORIO DE ESTE ARCHIVO COMO BASE").append('\n');
+            sb.append("spl_autoload_register(function ($clase) {").append('\n');
+            sb.append("    ").append("$archivo = __DIR__ . '/' . str_replace('\\\\', '/', ltrim($clase, '\\\\')) . '.php';")
+                    .append('\n');
+            sb.append("    ").append("if (is_file($archivo)) {").append('\n');
+            sb.append("        ").append("require $archivo;").append('\n');
+            sb.append("    ").append('}').append('\n');
+        }
+        sb.append("});").append('\n');
+        sb.append("?>").append('\n');
+        return sb.toString();
+    }
+
+    private String generarPreload(List<Clase> clases) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?php").append('\n');
+        sb.append("// PRECARGA PARA OPCACHE: usar como valor de la directiva opcache.preload").append('\n');
+        sb.append("// Las clases se compilan en orden de dependencias, las clases asociadas primero.").append('\n');
+        for (Clase c : ordenarPorDependencias(clases)) {
+            sb.append("opcache_compile_file(__DIR__ . '/").append(c.getRutaArchivo()).append(".php');").append('\n');
+        }
+        sb.append("?>").append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * @param clases Las clases que se van a generar.
+     * @return Las clases ordenadas de forma que cada clase aparece después de las clases que
+     * referencia. Los ciclos entre clases asociadas se rompen en el orden en que aparecen
+     * en el archivo.
+     */
+    private List<Clase> ordenarPorDependencias(List<Clase> clases) {
+        List<Clase> ordenadas = new ArrayList<>(clases.size());
+        Set<Clase> visitadas = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Clase c : clases) {
+            if (visitadas.add(c)) {
+                // Recorrido en profundidad sin recursión, para no desbordar la pila con modelos grandes
+                Deque<Iterator<Atributo>> pila = new ArrayDeque<>();
+                Deque<Clase> camino = new ArrayDeque<>();
+                pila.push(c.getAtributos().iterator());
+                camino.push(c);
+                while (!pila.isEmpty()) {
+                    Iterator<Atributo> it = pila.peek();
+                    if (it.hasNext()) {
+                        Clase referenciada = it.next().getClaseReferenciada();
+                        if (referenciada != null && visitadas.add(referenciada)) {
+                            pila.push(referenciada.getAtributos().iterator());
+                            camino.push(referenciada);
+                        }
+                    } else {
+                        pila.pop();
+                        ordenadas.add(camino.pop());
+                    }
+                }
+            }
+        }
+        return ordenadas;
+    }
+
+    /**
+     * @param clases Las clases que se van a generar.
+     * @return Nombre de la variable de cada clase en el script 'Main': su nombre en minúsculas,
+     * seguido de un número si otra clase, de otro paquete, ya usa ese nombre.
+     */
+    private Map<Clase, String> nombresDeVariables(List<Clase> clases) {
+        Map<Clase, String> variables = new IdentityHashMap<>();
+        Set<String> usadas = new HashSet<>();
+        for (Clase c : clases) {
+            String nombre = c.getNombre().toLowerCase();
+            String variable = nombre;
+            for (int i = 2; !usadas.add(variable); i++) {
+                variable = nombre + i;
+            }
+            variables.put(c, variable);
+        }
+        return variables;
+    }
+
+    /**
+     * @param clase    Clase a referenciar desde el script 'Main'.
+     * @param opciones Opciones de la conversión.
+     * @return Nombre totalmente calificado de la clase si se usan namespaces, o solo su nombre
+     * en caso contrario.
+     */
+    private String nombreParaMain(Clase clase, OpcionesGeneracion opciones) {
+        if (opciones.usaNamespaces() && !clase.getPaquetes().isEmpty()) {
+            return '\\' + clase.getNombreCompleto();
+        }
+        return clase.getNombre();
+    }
+
     private String hacerPalabraPrimeraLetraMayuscula(String texto) {
         return texto.substring(0, 1).toUpperCase().concat(texto.substring(1));
     }
@@ -223,6 +1193,9 @@ public final class GeneradorPHP {
      * <p>Este proceso podría fallar y no todas las clases presentes en el
      * Map serán generados.
      *
+     * <p>Las claves del Map pueden ser rutas relativas separadas por '/', en
+     * cuyo caso se crean los directorios que hagan falta.
+     *
      * @param clases            Map que contiene la información de las clases.
      * @param rutaDeGuardadoPHP Ruta donde se guardará la información
      *                          de las clases, contenida en el map.
@@ -233,45 +1206,89 @@ public final class GeneradorPHP {
             throws GeneradorPHPException {
         for (Map.Entry<String, String> clase : clases.entrySet()) {
             if (clase.getKey() != null && clase.getValue() != null) {
-                String nombreArchivo = clase.getKey() + ".php";
-                try {
-                    File archivo = new File(rutaDeGuardadoPHP, nombreArchivo);
-                    if (!archivo.exists()) {
-                        if (archivo.createNewFile()) {
-                            try (FileWriter fw = new FileWriter(archivo); BufferedWriter bw = new BufferedWriter(fw)) {
-                                bw.write(clase.getValue());
-                            } catch (IOException e) {
-                                throw new GeneradorPHPException("ADVERTENCIA CONVERSOR PHP: " +
-                                        "Proceso de generación de los archivos detenida. " +
-                                        "No se puede leer o escribir en el archivo " + clase.getKey() + ". " +
-                                        "No existe o no es accesible. " +
-                                        "Presionar 'Siguiente' solo mostrará las clases que se" +
-                                        "lograron generar antes del error.", e);
-                            }
-                        }
-                    }
-                } catch (IOException e) {
-                    throw new GeneradorPHPException("ADVERTENCIA CONVERSOR PHP: " +
-                            "Proceso de generación de los archivos detenida. " +
-                            "No se pudo crear el archivo: " + clase.getKey() + ". " +
-                            "Presionar 'Siguiente' solo mostrará las clases que se" +
-                            "lograron generar antes del error", e);
-                }
+                escribirArchivoPHP(new ArchivoPHP(clase.getKey(), clase.getValue()), rutaDeGuardadoPHP);
+            }
+        }
+    }
+
+    /**
+     * Convierte el archivo XMI y guarda cada clase en su respectivo archivo '.php'
+     * tan pronto como su código está generado, sin esperar a que termine la conversión
+     * del resto de clases.
+     *
+     * @param rutaAbsolutaDelArchivo Ruta absoluta del archivo que contiene el código XMI a convertir.
+     * @param rutaDeGuardadoPHP      Ruta donde se guardarán los archivos generados.
+     * @param opciones               Opciones de la conversión.
+     * @throws GeneradorPHPException Si el archivo XMI no puede convertirse, o un archivo no
+     *                               puede ser creado o no puede escribirse en el.
+     * @see #generarPHPEnFlujo(String, OpcionesGeneracion, ReceptorArchivoPHP)
+     */
+    public final void generarArchivosPHPEnFlujo(String rutaAbsolutaDelArchivo, String rutaDeGuardadoPHP,
+                                                OpcionesGeneracion opciones) throws GeneradorPHPException {
+        generarPHPEnFlujo(rutaAbsolutaDelArchivo, opciones, archivo -> escribirArchivoPHP(archivo, rutaDeGuardadoPHP));
+    }
+
+    /**
+     * Escribe el archivo, codificado en UTF-8, con una sola escritura de todo su contenido.
+     * Los archivos que ya existen no se sobrescriben.
+     *
+     * @param archivoPHP        Archivo a escribir.
+     * @param rutaDeGuardadoPHP Ruta donde se guardará el archivo.
+     * @throws GeneradorPHPException Si el archivo no puede ser creado o no puede escribirse en el.
+     */
+    private void escribirArchivoPHP(ArchivoPHP archivoPHP, String rutaDeGuardadoPHP)
+            throws GeneradorPHPException {
+        String nombre = archivoPHP.getRutaRelativa();
+        String nombreArchivo = nombre + ".php";
+        try {
+            File archivo = new File(rutaDeGuardadoPHP, nombreArchivo);
+            File directorio = archivo.getParentFile();
+            if (!directorio.isDirectory() && !directorio.mkdirs()) {
+                throw new IOException("No se pudo crear el directorio " + directorio);
+            }
+            try (FileChannel canal = FileChannel.open(archivo.toPath(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                escribirTodo(canal, archivoPHP.getBytes());
+            } catch (FileAlreadyExistsException e) {
+                // El archivo ya existe y se conserva
+            } catch (IOException e) {
+                throw new GeneradorPHPException("ADVERTENCIA CONVERSOR PHP: " +
+                        "Proceso de generación de los archivos detenida. " +
+                        "No se puede leer o escribir en el archivo " + nombre + ". " +
+                        "No existe o no es accesible. " +
+                        "Presionar 'Siguiente' solo mostrará las clases que se" +
+                        "lograron generar antes del error.", e);
             }
+        } catch (IOException e) {
+            throw new GeneradorPHPException("ADVERTENCIA CONVERSOR PHP: " +
+                    "Proceso de generación de los archivos detenida. " +
+                    "No se pudo crear el archivo: " + nombre + ". " +
+                    "Presionar 'Siguiente' solo mostrará las clases que se" +
+                    "lograron generar antes del error", e);
+        }
+    }
+
+    /**
+     * @param canal  Canal del archivo.
+     * @param buffer Contenido a escribir.
+     * @throws IOException Si no puede escribirse en el canal.
+     */
+    private void escribirTodo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        // La escritura puede ser parcial; se continúa desde el primer byte pendiente
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
         }
     }
 
     // Métodos utilitarios
 
     /**
-     * @param nodosDelTagDocumentation Nodos que contienen la información para verificar el archivo.
+     * @param elementosDocumentation Elementos que contienen la información para verificar el archivo.
      * @throws GeneradorPHPException Si el archivo no puede determinarse que es un archivo
      *                               exportado por StarUML.
      */
-    private void validarArchivo(NodeList nodosDelTagDocumentation) throws GeneradorPHPException {
-        for (int i = 0; i < nodosDelTagDocumentation.getLength(); i++) {
-            Node nodoDocumentation = nodosDelTagDocumentation.item(i);
-            Element elementoDocumentation = (Element) nodoDocumentation;
+    private void validarArchivo(List<Element> elementosDocumentation) throws GeneradorPHPException {
+        for (Element elementoDocumentation : elementosDocumentation) {
             if (!elementoDocumentation.getAttribute("exporter").equals("StarUML")) {
                 throw new GeneradorPHPException(ERROR_NO_EXPORTADO_POR_STARUML);
             }
@@ -282,38 +1299,248 @@ public final class GeneradorPHP {
     }
 
     /**
-     * @param nodosDelTagPackageElement Nodos del tag 'packageElement" que contienen la
-     *                                  información de cada una de las clases.
-     * @return Lista con todas las clases encontradas en el archivo.
-     * Lista vacía, si no se encuetra ninguna.
+     * @param elementoPackageElement Elemento del tag 'packageElement' que contiene la
+     *                               información de la clase.
+     * @return La clase analizada a partir del elemento, sin los atributos de sus asociaciones.
      */
-    private List<Clase> obtenerClases(NodeList nodosDelTagPackageElement) {
-        List<Clase> clases = new ArrayList<>();
-        for (int i = 0; i < nodosDelTagPackageElement.getLength(); i++) {
-            Node nodoPackageElement = nodosDelTagPackageElement.item(i);
-            if (nodoPackageElement.getNodeType() == Node.ELEMENT_NODE) {
-                Element elementoPackageElement = (Element) nodoPackageElement;
-                if (!elementoPackageElement.getAttribute("xmi:type").equals("uml:Model")
-                        && !elementoPackageElement.getAttribute("xmi:type").equals("uml:DataType")) {
-                    Clase clase = new Clase();
-                    clase.setId(elementoPackageElement.getAttribute("xmi:id"));
-                    if (elementoPackageElement.getAttribute("isAbstract").equals("true")) {
-                        clase.setAbstracta(true);
-                    } else if (elementoPackageElement.getAttribute("xmi:type")
-                            .equalsIgnoreCase("uml:Interface")) {
-                        clase.setInterfaz(true);
+    private Clase obtenerClase(Element elementoPackageElement) {
+        Clase clase = new Clase();
+        clase.setId(elementoPackageElement.getAttribute("xmi:id"));
+        if (elementoPackageElement.getAttribute("isAbstract").equals("true")) {
+            clase.setAbstracta(true);
+        } else if (elementoPackageElement.getAttribute("xmi:type")
+                .equalsIgnoreCase("uml:Interface")) {
+            clase.setInterfaz(true);
+        }
+        clase.setNombre(elementoPackageElement.getAttribute("name"));
+        clase.setPaquetes(obtenerPaquetesDeClase(elementoPackageElement));
+        clase.setAtributos(obtenerAtributosDeClase(elementoPackageElement
+                .getElementsByTagName("ownedAttribute")));
+        clase.setMetodos(obtenerMetodosDeClase(elementoPackageElement
+                .getElementsByTagName("ownedOperation")));
+        return clase;
+    }
+
+    /**
+     * @param elementoDeClase Elemento del tag 'packageElement' de la clase.
+     * @return Nombres de los paquetes UML que contienen a la clase, del más externo al más
+     * interno, convertidos en identificadores válidos de PHP.
+     * Lista vacía, si la clase no pertenece a ningún paquete.
+     */
+    private List<String> obtenerPaquetesDeClase(Element elementoDeClase) {
+        LinkedList<String> paquetes = new LinkedList<>();
+        for (Node n = elementoDeClase.getParentNode(); n != null; n = n.getParentNode()) {
+            if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("packagedElement")) {
+                Element elementoPaquete = (Element) n;
+                if (elementoPaquete.getAttribute("xmi:type").equals("uml:Package")) {
+                    paquetes.addFirst(elementoPaquete.getAttribute("name")
+                            .replaceAll("[^A-Za-z0-9_]", "_")
+                            .replaceFirst("^(?=[0-9]|$)", "_"));
+                }
+            }
+        }
+        return paquetes;
+    }
+
+    /**
+     * Asigna a cada clase la ruta relativa de su archivo según la distribución de
+     * archivos elegida.
+     *
+     * @param clases   Las clases que se van a generar.
+     * @param opciones Opciones de la conversión.
+     */
+    private void asignarRutasDeArchivos(List<Clase> clases, OpcionesGeneracion opciones)
+            throws GeneradorPHPException {
+        int niveles = DistribucionArchivos.nivelesNecesarios(clases.size(), opciones.getMaxEntradasPorDirectorio());
+        Map<String, String> rutasOcupadas = rutasReservadas(opciones);
+        for (Clase c : clases) {
+            asignarRuta(c, niveles, rutasOcupadas, opciones);
+        }
+    }
+
+    /**
+     * @param opciones Opciones de la conversión.
+     * @return Descripción de cada archivo auxiliar que se generará, por su ruta.
+     */
+    private Map<String, String> rutasReservadas(OpcionesGeneracion opciones) {
+        Map<String, String> rutas = new HashMap<>();
+        rutas.put("Main", "el script 'Main'");
+        if (opciones.getCarga() != ModoCarga.REQUIRE_ONCE) {
+            rutas.put("autoload", "el archivo 'autoload'");
+        }
+        if (opciones.generaPreload()) {
+            rutas.put("preload", "el archivo 'preload'");
+        }
+        return rutas;
+    }
+
+    /**
+     * Asigna a la clase la ruta relativa de su archivo, verificando que ningún otro archivo
+     * generado tenga la misma ruta.
+     *
+     * @param clase         Clase a la que se asigna la ruta.
+     * @param niveles       Niveles de directorios de la distribución fragmentada.
+     * @param rutasOcupadas Descripción del archivo que ocupa cada ruta ya asignada. Se le
+     *                      agrega la ruta de la clase.
+     * @param opciones      Opciones de la conversión.
+     * @throws GeneradorPHPException Si la ruta ya pertenece a otra clase o a un archivo auxiliar.
+     */
+    private void asignarRuta(Clase clase, int niveles, Map<String, String> rutasOcupadas,
+                             OpcionesGeneracion opciones) throws GeneradorPHPException {
+        String ruta = opciones.getDistribucion().rutaDe(clase, niveles);
+        String ocupante = rutasOcupadas.putIfAbsent(ruta, "la clase '" + clase.getNombreCompleto() + "'");
+        if (ocupante != null) {
+            // Uno de los dos archivos reemplazaría al otro
+            throw new GeneradorPHPException(String.format(ERROR_RUTA_REPETIDA,
+                    clase.getNombreCompleto(), ruta, ocupante));
+        }
+        clase.setRutaArchivo(ruta);
+    }
+
+    /**
+     * Obtiene los ID de las clases seleccionadas y de todas las clases que estas alcanzan por
+     * medio de asociaciones, es decir, las clases que terminarán siendo atributos y 'require'
+     * de las clases seleccionadas.
+     *
+     * @param nombresPorId Nombre de cada clase encontrada en el archivo, por ID.
+     * @param asociaciones Las asociaciones encontradas en el archivo.
+     * @param seleccion    ID, nombres o patrones de las clases seleccionadas.
+     * @return ID de las clases seleccionadas y su cierre por asociaciones.
+     * @throws GeneradorPHPException Si algún elemento de la selección no coincide con ninguna clase.
+     */
+    private Set<String> seleccionarIds(Map<String, String> nombresPorId, List<Asociacion> asociaciones,
+                                       Set<String> seleccion) throws GeneradorPHPException {
+        // Clases vecinas de cada clase según las asociaciones
+        Map<String, List<String>> vecinas = new HashMap<>();
+        for (Asociacion a : asociaciones) {
+            if (nombresPorId.containsKey(a.getIdOrigen()) && nombresPorId.containsKey(a.getIdDestino())) {
+                vecinas.computeIfAbsent(a.getIdOrigen(), k -> new ArrayList<>()).add(a.getIdDestino());
+                vecinas.computeIfAbsent(a.getIdDestino(), k -> new ArrayList<>()).add(a.getIdOrigen());
+            }
+        }
+        return cerrarSeleccion(nombresPorId, vecinas, seleccion);
+    }
+
+    /**
+     * @param clases       Todas las clases extraídas del archivo, sin resolver sus asociaciones.
+     * @param asociaciones Las asociaciones encontradas en el archivo.
+     * @param seleccion    ID, nombres o patrones de las clases seleccionadas.
+     * @return Lista con las clases seleccionadas y su cierre por asociaciones, en el mismo orden.
+     * @throws GeneradorPHPException Si algún elemento de la selección no coincide con ninguna clase.
+     */
+    private List<Clase> seleccionarClases(List<Clase> clases, List<Asociacion> asociaciones,
+                                          Set<String> seleccion) throws GeneradorPHPException {
+        Map<String, String> nombresPorId = new LinkedHashMap<>();
+        for (Clase c : clases) {
+            nombresPorId.putIfAbsent(c.getId(), c.getNombre());
+        }
+
+        Set<String> idsSeleccionados = seleccionarIds(nombresPorId, asociaciones, seleccion);
+        List<Clase> clasesSeleccionadas = new ArrayList<>();
+        for (Clase c : clases) {
+            if (idsSeleccionados.remove(c.getId())) {
+                clasesSeleccionadas.add(c);
+            }
+        }
+        return clasesSeleccionadas;
+    }
+
+    /**
+     * Igual que {@code seleccionarClases(List, List, Set)}, pero sobre clases cuyas asociaciones
+     * ya fueron resueltas como atributos que referencian a otras clases.
+     *
+     * @param clases    Todas las clases del modelo, con sus asociaciones resueltas.
+     * @param seleccion ID, nombres o patrones de las clases seleccionadas.
+     * @return Lista con las clases seleccionadas y su cierre por asociaciones, en el mismo orden.
+     * @throws GeneradorPHPException Si algún elemento de la selección no coincide con ninguna clase.
+     */
+    List<Clase> seleccionarClases(List<Clase> clases, Set<String> seleccion) throws GeneradorPHPException {
+        Map<String, String> nombresPorId = new LinkedHashMap<>();
+        Map<String, List<String>> vecinas = new HashMap<>();
+        for (Clase c : clases) {
+            nombresPorId.putIfAbsent(c.getId(), c.getNombre());
+            for (Atributo a : c.getAtributos()) {
+                if (a.getClaseReferenciada() != null) {
+                    vecinas.computeIfAbsent(c.getId(), k -> new ArrayList<>()).add(a.getClaseReferenciada().getId());
+                }
+            }
+        }
+
+        Set<String> idsSeleccionados = cerrarSeleccion(nombresPorId, vecinas, seleccion);
+        List<Clase> clasesSeleccionadas = new ArrayList<>();
+        for (Clase c : clases) {
+            if (idsSeleccionados.remove(c.getId())) {
+                clasesSeleccionadas.add(c);
+            }
+        }
+        return clasesSeleccionadas;
+    }
+
+    /**
+     * @param nombresPorId Nombre de cada clase, por ID.
+     * @param vecinas      ID de las clases asociadas a cada clase, por ID.
+     * @param seleccion    ID, nombres o patrones de las clases seleccionadas.
+     * @return ID de las clases seleccionadas y de todas las que estas alcanzan por asociaciones.
+     * @throws GeneradorPHPException Si algún elemento de la selección no coincide con ninguna clase.
+     */
+    private Set<String> cerrarSeleccion(Map<String, String> nombresPorId, Map<String, List<String>> vecinas,
+                                        Set<String> seleccion) throws GeneradorPHPException {
+        // Clases de las que se parte
+        Deque<String> pendientes = new ArrayDeque<>();
+        for (String s : seleccion) {
+            boolean encontrada = false;
+            if (nombresPorId.containsKey(s)) {
+                pendientes.add(s);
+                encontrada = true;
+            } else {
+                Pattern patron = crearPatronDeSeleccion(s);
+                for (Map.Entry<String, String> clase : nombresPorId.entrySet()) {
+                    if (patron.matcher(clase.getValue()).matches()) {
+                        pendientes.add(clase.getKey());
+                        encontrada = true;
                     }
-                    clase.setNombre(elementoPackageElement.getAttribute("name"));
-                    clase.setAtributos(obtenerAtributosDeClase(elementoPackageElement
-                            .getElementsByTagName("ownedAttribute")));
-                    clase.setMetodos(obtenerMetodosDeClase(elementoPackageElement
-                            .getElementsByTagName("ownedOperation")));
+                }
+            }
+            if (!encontrada) {
+                throw new GeneradorPHPException("ERROR EN CONVERSOR PHP: " +
+                        "La selección '" + s + "' no coincide con ninguna clase del archivo.");
+            }
+        }
 
-                    clases.add(clase);
+        // Cierre por asociaciones
+        Set<String> idsSeleccionados = new HashSet<>();
+        while (!pendientes.isEmpty()) {
+            String id = pendientes.poll();
+            if (idsSeleccionados.add(id)) {
+                pendientes.addAll(vecinas.getOrDefault(id, Collections.emptyList()));
+            }
+        }
+        return idsSeleccionados;
+    }
+
+    /**
+     * @param seleccion Nombre o patrón de la selección, donde {@code *} equivale a cualquier
+     *                  secuencia de caracteres y {@code ?} a un único carácter.
+     * @return Expresión regular equivalente.
+     */
+    private Pattern crearPatronDeSeleccion(String seleccion) {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : seleccion.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    sb.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
                 }
+                sb.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
             }
         }
-        return clases;
+        if (literal.length() > 0) {
+            sb.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(sb.toString());
     }
 
     /**
@@ -380,68 +1607,24 @@ public final class GeneradorPHP {
     }
 
     /**
-     * @param nodosDelTagOwnedMember Nodos del tag "ownedMember" que contienen la información
-     *                               de las asociaciones y las los ID de las clases a las
-     *                               que afecta.
-     * @return Lista de todas las asociaciones encontradas en el archivo.
-     * Lista vacía, si no se encuentra ninguna.
+     * @param elementoOwnedMember Elemento del tag "ownedMember" que contiene la información
+     *                            de la asociación y los ID de las clases a las que afecta.
+     * @return La asociación analizada a partir del elemento.
      */
-    private List<Asociacion> obtenerAsociaciones(NodeList nodosDelTagOwnedMember) {
-        List<Asociacion> asociaciones = new ArrayList<>();
-        for (int i = 0; i < nodosDelTagOwnedMember.getLength(); i++) {
-            Node nodoOwnedMember = nodosDelTagOwnedMember.item(i);
-            Element elementoOwnedMember = (Element) nodoOwnedMember;
-            if (nodoOwnedMember.getNodeType() == Node.ELEMENT_NODE) {
-                Asociacion asociacion = new Asociacion();
-                NodeList nodosDelTagOwnedEnd = elementoOwnedMember.getElementsByTagName("ownedEnd");
-                for (int j = 0; j < nodosDelTagOwnedEnd.getLength(); j++) {
-                    Node nodoOwnedEnd = nodosDelTagOwnedEnd.item(j);
-                    Element elementoOwnedEnd = (Element) nodoOwnedEnd;
-                    if (nodoOwnedEnd.getNodeType() == Node.ELEMENT_NODE) {
-                        if (j == 0) {
-                            // Lado A de la asociación
-                            asociacion.setIdOrigen(elementoOwnedEnd.getAttribute("type"));
-                        } else {
-                            // Lado B de la asociación
-                            asociacion.setIdDestino(elementoOwnedEnd.getAttribute("type"));
-                        }
-                    }
-                }
-                asociaciones.add(asociacion);
-            }
-        }
-        return asociaciones;
-    }
-
-    /**
-     * @param id     ID de la clase a buscar.
-     * @param clases Lista de todas las clases donde se buscará la clase deseada.
-     * @return {@code Optional} con la clase encontrada.
-     * <p>{@code Optional} vacío, si no se encuentra.
-     */
-    private Optional<Clase> buscarClase(String id, List<Clase> clases) {
-        Optional<Clase> clase = Optional.empty();
-        for (Clase c : clases) {
-            if (id.equals(c.getId())) {
-                clase = Optional.of(c);
-                break;
-            }
-        }
-        return clase;
-    }
-
-    /**
-     * @param idClase    ID de la clase a reemplazar.
-     * @param clases     Las clases encontradas en el archivo.
-     * @param nuevaClase Misma clase pero modificada para admitir asociaciones.
-     */
-    private void reemplazarClaseAfectadaPorAsociacion(String idClase, List<Clase> clases, Clase nuevaClase) {
-        for (int i = 0; i < clases.size(); i++) {
-            if (idClase.equals(clases.get(i).getId())) {
-                clases.set(i, nuevaClase);
-                break;
+    private Asociacion obtenerAsociacion(Element elementoOwnedMember) {
+        Asociacion asociacion = new Asociacion();
+        NodeList nodosDelTagOwnedEnd = elementoOwnedMember.getElementsByTagName("ownedEnd");
+        for (int j = 0; j < nodosDelTagOwnedEnd.getLength(); j++) {
+            Element elementoOwnedEnd = (Element) nodosDelTagOwnedEnd.item(j);
+            if (j == 0) {
+                // Lado A de la asociación
+                asociacion.setIdOrigen(elementoOwnedEnd.getAttribute("type"));
+            } else {
+                // Lado B de la asociación
+                asociacion.setIdDestino(elementoOwnedEnd.getAttribute("type"));
             }
         }
+        return asociacion;
     }
 
     /**
@@ -452,28 +1635,15 @@ public final class GeneradorPHP {
      * @param clases       Las clases encontradas en el archivo.
      */
     private void modificarClasesAfectadasPorAsociaciones(List<Asociacion> asociaciones, List<Clase> clases) {
-        for (Asociacion a : asociaciones) {
-            Optional<Clase> claseAfectadaA = buscarClase(a.getIdOrigen(), clases);
-            Optional<Clase> claseAfectadaB = buscarClase(a.getIdDestino(), clases);
-            if (claseAfectadaA.isPresent() && claseAfectadaB.isPresent()) {
-                Atributo atributoInfoClaseA = new Atributo();
-                atributoInfoClaseA.setNombre(claseAfectadaA.get().getNombre());
-                atributoInfoClaseA.setVisibilidad("private");
-                atributoInfoClaseA.setEstatico(false);
-                atributoInfoClaseA.setEsReferenciaAUnaClase(true);
-
-                Atributo atributoInfoClaseB = new Atributo();
-                atributoInfoClaseB.setNombre(claseAfectadaB.get().getNombre());
-                atributoInfoClaseB.setVisibilidad("private");
-                atributoInfoClaseB.setEstatico(false);
-                atributoInfoClaseB.setEsReferenciaAUnaClase(true);
-
-                claseAfectadaA.get().agregarAtributo(atributoInfoClaseB);
-                claseAfectadaB.get().agregarAtributo(atributoInfoClaseA);
-
-                reemplazarClaseAfectadaPorAsociacion(a.getIdOrigen(), clases, claseAfectadaA.get());
-                reemplazarClaseAfectadaPorAsociacion(a.getIdDestino(), clases, claseAfectadaB.get());
-            }
+        Set<String> idsDeClases = new HashSet<>();
+        for (Clase c : clases) {
+            idsDeClases.add(c.getId());
+        }
+
+        // Al registrar todas las clases, todas quedan con los atributos de sus asociaciones
+        ResolutorDeAsociaciones resolutor = new ResolutorDeAsociaciones(asociaciones, idsDeClases);
+        for (Clase c : clases) {
+            resolutor.registrar(c);
         }
     }
 }
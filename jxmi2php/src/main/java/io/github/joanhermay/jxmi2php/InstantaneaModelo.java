@@ -0,0 +1,272 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Formato binario de las instantáneas del modelo, con las clases y sus asociaciones ya resueltas.
+ *
+ * <p>Estructura, en orden:
+ * <ul>
+ * <li>Firma {@code JX2P} y versión del formato.</li>
+ * <li>Tabla de cadenas: cada cadena distinta del modelo aparece una sola vez, en UTF-8.</li>
+ * <li>Clases: cada cadena se escribe como su posición en la tabla y cada atributo que
+ * referencia a otra clase, como la posición de esa clase.</li>
+ * </ul>
+ *
+ * <p>Todos los números se escriben como enteros de longitud variable (7 bits por byte),
+ * por lo que la lectura es estrictamente secuencial.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class InstantaneaModelo {
+    private static final int FIRMA = 0x4A583250; // "JX2P"
+    private static final int VERSION = 1;
+
+    private static final String ERROR_FORMATO = "ERROR EN CONVERSOR PHP: " +
+            "El archivo no es una instantánea del modelo o está dañado.";
+
+    private static final String ERROR_VERSION = "ERROR EN CONVERSOR PHP: " +
+            "La instantánea fue creada por una versión incompatible del conversor. " +
+            "Versión de instantánea soportada: " + VERSION + ".";
+
+    // Banderas de clases, atributos y métodos
+    private static final int ABSTRACTA = 1;
+    private static final int INTERFAZ = 1 << 1;
+    private static final int ESTATICO = 1;
+    private static final int REFERENCIA = 1 << 1;
+    private static final int ABSTRACTO = 1 << 1;
+
+    private InstantaneaModelo() {
+    }
+
+    /**
+     * @param clases Las clases del modelo, con los atributos de sus asociaciones ya agregados.
+     * @param salida Flujo donde se escribe la instantánea. No se cierra.
+     * @throws IOException Si no puede escribirse en el flujo.
+     */
+    static void escribir(List<Clase> clases, OutputStream salida) throws IOException {
+        // Posición de cada clase, para escribir las referencias entre clases
+        Map<Clase, Integer> posiciones = new IdentityHashMap<>();
+        for (int i = 0; i < clases.size(); i++) {
+            posiciones.put(clases.get(i), i);
+        }
+
+        Map<String, Integer> tabla = new LinkedHashMap<>();
+        for (Clase c : clases) {
+            registrar(tabla, c.getId());
+            registrar(tabla, c.getNombre());
+            for (String p : c.getPaquetes()) {
+                registrar(tabla, p);
+            }
+            for (Atributo a : c.getAtributos()) {
+                registrar(tabla, a.getNombre());
+                registrar(tabla, a.getVisibilidad());
+            }
+            for (Metodo m : c.getMetodos()) {
+                registrar(tabla, m.getNombre());
+                registrar(tabla, m.getVisibilidad());
+                for (String p : m.getParametros()) {
+                    registrar(tabla, p);
+                }
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(salida, 64 * 1024));
+        out.writeInt(FIRMA);
+        escribirEntero(out, VERSION);
+
+        escribirEntero(out, tabla.size());
+        for (String cadena : tabla.keySet()) {
+            byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+            escribirEntero(out, bytes.length);
+            out.write(bytes);
+        }
+
+        escribirEntero(out, clases.size());
+        for (Clase c : clases) {
+            escribirEntero(out, tabla.get(c.getId()));
+            escribirEntero(out, tabla.get(c.getNombre()));
+            escribirEntero(out, (c.esAbstracta() ? ABSTRACTA : 0) | (c.esInterfaz() ? INTERFAZ : 0));
+
+            escribirEntero(out, c.getPaquetes().size());
+            for (String p : c.getPaquetes()) {
+                escribirEntero(out, tabla.get(p));
+            }
+
+            escribirEntero(out, c.getAtributos().size());
+            for (Atributo a : c.getAtributos()) {
+                escribirEntero(out, tabla.get(a.getNombre()));
+                escribirEntero(out, tabla.get(a.getVisibilidad()));
+                escribirEntero(out, (a.esEstatico() ? ESTATICO : 0) | (a.EsReferenciaAUnaClase() ? REFERENCIA : 0));
+                // 0 si no referencia a ninguna clase del modelo, o la posición de la clase más uno
+                Integer referenciada = a.getClaseReferenciada() == null
+                        ? null : posiciones.get(a.getClaseReferenciada());
+                escribirEntero(out, referenciada == null ? 0 : referenciada + 1);
+            }
+
+            escribirEntero(out, c.getMetodos().size());
+            for (Metodo m : c.getMetodos()) {
+                escribirEntero(out, tabla.get(m.getNombre()));
+                escribirEntero(out, tabla.get(m.getVisibilidad()));
+                escribirEntero(out, (m.esEstatico() ? ESTATICO : 0) | (m.esAbstracto() ? ABSTRACTO : 0));
+                escribirEntero(out, m.getParametros().size());
+                for (String p : m.getParametros()) {
+                    escribirEntero(out, tabla.get(p));
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * @param entrada Flujo del que se lee la instantánea. No se cierra.
+     * @return Las clases del modelo, con los atributos de sus asociaciones ya agregados.
+     * @throws IOException           Si el flujo no puede leerse.
+     * @throws GeneradorPHPException Si el contenido no es una instantánea válida o su versión
+     *                               no es compatible.
+     */
+    static List<Clase> leer(InputStream entrada) throws IOException, GeneradorPHPException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(entrada, 64 * 1024));
+        try {
+            if (in.readInt() != FIRMA) {
+                throw new GeneradorPHPException(ERROR_FORMATO);
+            }
+            if (leerEntero(in) != VERSION) {
+                throw new GeneradorPHPException(ERROR_VERSION);
+            }
+
+            // Ninguna lista se dimensiona con las cantidades leídas: una instantánea dañada
+            // termina en EOFException en lugar de reservar memoria que no existe en el archivo
+            int cantidadDeCadenas = leerCantidad(in);
+            List<String> cadenas = new ArrayList<>();
+            byte[] buffer = new byte[256];
+            for (int i = 0; i < cantidadDeCadenas; i++) {
+                int longitud = leerCantidad(in);
+                buffer = leerBytes(in, longitud, buffer);
+                cadenas.add(new String(buffer, 0, longitud, StandardCharsets.UTF_8));
+            }
+            String[] tabla = cadenas.toArray(new String[0]);
+
+            // Las referencias pueden apuntar a clases que aún no se han leído, se asignan al final
+            List<Clase> clases = new ArrayList<>();
+            Map<Atributo, Integer> referencias = new IdentityHashMap<>();
+            int cantidadDeClases = leerCantidad(in);
+            for (int i = 0; i < cantidadDeClases; i++) {
+                Clase c = new Clase();
+                c.setId(tabla[leerEntero(in)]);
+                c.setNombre(tabla[leerEntero(in)]);
+                int banderas = leerEntero(in);
+                c.setAbstracta((banderas & ABSTRACTA) != 0);
+                c.setInterfaz((banderas & INTERFAZ) != 0);
+
+                int cantidadDePaquetes = leerCantidad(in);
+                List<String> paquetes = new ArrayList<>();
+                for (int j = 0; j < cantidadDePaquetes; j++) {
+                    paquetes.add(tabla[leerEntero(in)]);
+                }
+                c.setPaquetes(paquetes);
+
+                int cantidadDeAtributos = leerCantidad(in);
+                List<Atributo> atributos = new ArrayList<>();
+                for (int j = 0; j < cantidadDeAtributos; j++) {
+                    Atributo a = new Atributo();
+                    a.setNombre(tabla[leerEntero(in)]);
+                    a.setVisibilidad(tabla[leerEntero(in)]);
+                    int banderasAtributo = leerEntero(in);
+                    a.setEstatico((banderasAtributo & ESTATICO) != 0);
+                    a.setEsReferenciaAUnaClase((banderasAtributo & REFERENCIA) != 0);
+                    int referenciada = leerCantidad(in);
+                    if (referenciada > 0) {
+                        referencias.put(a, referenciada - 1);
+                    }
+                    atributos.add(a);
+                }
+                c.setAtributos(atributos);
+
+                int cantidadDeMetodos = leerCantidad(in);
+                List<Metodo> metodos = new ArrayList<>();
+                for (int j = 0; j < cantidadDeMetodos; j++) {
+                    Metodo m = new Metodo();
+                    m.setNombre(tabla[leerEntero(in)]);
+                    m.setVisibilidad(tabla[leerEntero(in)]);
+                    int banderasMetodo = leerEntero(in);
+                    m.setEstatico((banderasMetodo & ESTATICO) != 0);
+                    m.setAbstracto((banderasMetodo & ABSTRACTO) != 0);
+                    int cantidadDeParametros = leerCantidad(in);
+                    for (int k = 0; k < cantidadDeParametros; k++) {
+                        m.agregarParametro(tabla[leerEntero(in)]);
+                    }
+                    metodos.add(m);
+                }
+                c.setMetodos(metodos);
+                clases.add(c);
+            }
+
+            for (Map.Entry<Atributo, Integer> referencia : referencias.entrySet()) {
+                referencia.getKey().setClaseReferenciada(clases.get(referencia.getValue()));
+            }
+            return clases;
+        } catch (EOFException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new GeneradorPHPException(ERROR_FORMATO, e);
+        }
+    }
+
+    /**
+     * Lee {@code longitud} bytes. Si el buffer no alcanza, crece a medida que los bytes
+     * llegan, de forma que una longitud dañada no reserva más del doble de lo que realmente
+     * contiene el flujo.
+     *
+     * @return El buffer con los bytes leídos al inicio; puede ser el mismo buffer recibido.
+     */
+    private static byte[] leerBytes(DataInputStream in, int longitud, byte[] buffer) throws IOException {
+        int leidos = 0;
+        while (leidos < longitud) {
+            if (leidos == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(longitud, buffer.length * 2L));
+            }
+            int n = in.read(buffer, leidos, Math.min(buffer.length, longitud) - leidos);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            leidos += n;
+        }
+        return buffer;
+    }
+
+    private static void registrar(Map<String, Integer> tabla, String cadena) {
+        tabla.putIfAbsent(cadena, tabla.size());
+    }
+
+    private static void escribirEntero(DataOutputStream out, int valor) throws IOException {
+        while ((valor & ~0x7f) != 0) {
+            out.writeByte((valor & 0x7f) | 0x80);
+            valor >>>= 7;
+        }
+        out.writeByte(valor);
+    }
+
+    /**
+     * @return Un entero que representa una cantidad o posición, por lo que no puede ser negativo.
+     */
+    private static int leerCantidad(DataInputStream in) throws IOException, GeneradorPHPException {
+        int cantidad = leerEntero(in);
+        if (cantidad < 0) {
+            throw new GeneradorPHPException(ERROR_FORMATO);
+        }
+        return cantidad;
+    }
+
+    private static int leerEntero(DataInputStream in) throws IOException, GeneradorPHPException {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            int b = in.readUnsignedByte();
+            valor |= (b & 0x7f) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new GeneradorPHPException(ERROR_FORMATO);
+    }
+}
@@ -0,0 +1,242 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Lee el código XMI a partir de los eventos SAX y entrega cada clase y cada asociación en
+ * cuanto termina su elemento, sin construir el DOM del archivo completo.
+ *
+ * <p>Cada clase que no está dentro de otra clase, y cada asociación que no está dentro de una
+ * clase, forman una unidad. Solo existe en memoria el DOM de los elementos abiertos y de la
+ * unidad que se está leyendo; al terminar la unidad se entregan sus clases y asociaciones, en
+ * el orden en que aparecen, y su DOM se descarta. Los elementos conservan su nombre con
+ * prefijo, como 'xmi:id', igual que en el DOM que construye {@code DocumentBuilder} sin
+ * soporte de namespaces. El texto de los elementos no se conserva.
+ *
+ * <p>Los límites de elementos y de anidamiento se verifican a medida que se leen.
+ *
+ * <p>Las entidades y DTD externos nunca se leen: se reemplazan por contenido vacío, para que
+ * ningún archivo pueda hacer leer bytes que no cuentan para los límites de la entrada.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+abstract class LectorXMI extends DefaultHandler {
+    // Elementos que bastan para conocer las clases, sus paquetes y sus asociaciones
+    private static final Set<String> ELEMENTOS_DE_ESTRUCTURA = new HashSet<>(Arrays.asList(
+            "packagedElement", "ownedMember", "ownedEnd", "xmi:Documentation"));
+
+    private final LimitesConversion limites;
+    private final List<Element> documentacion;
+    private boolean soloEstructura;
+    private Set<String> unidadesALeer;
+    private boolean terminada;
+
+    private Document documento;
+    private Node actual;
+    private Element unidad;
+    private boolean[] creados;
+    private int elementos;
+    private int profundidad;
+    private int profundidadOmitida;
+
+    /**
+     * @param limites Límites de la conversión.
+     */
+    LectorXMI(LimitesConversion limites) {
+        this.limites = limites;
+        this.documentacion = new ArrayList<>();
+        this.creados = new boolean[64];
+    }
+
+    /**
+     * @param elementoDeClase Elemento del tag 'packagedElement' de la clase, unido aún a los
+     *                        elementos que lo contienen.
+     * @param unidad          Elemento de la unidad a la que pertenece la clase. Es el mismo
+     *                        elemento de la clase si esta no está dentro de otra clase.
+     * @throws SAXException Para cancelar la lectura.
+     */
+    abstract void clase(Element elementoDeClase, Element unidad) throws SAXException;
+
+    /**
+     * @param elementoOwnedMember Elemento del tag 'ownedMember' de la asociación.
+     * @throws SAXException Para cancelar la lectura.
+     */
+    void asociacion(Element elementoOwnedMember) throws SAXException {
+        // Por defecto las asociaciones no se necesitan
+    }
+
+    /**
+     * @param soloEstructura Si es {@code true}, solo se construyen los elementos de clases,
+     *                       paquetes y asociaciones; los atributos, métodos y parámetros se
+     *                       leen, pero no llegan a formar parte del DOM.
+     */
+    void setSoloEstructura(boolean soloEstructura) {
+        this.soloEstructura = soloEstructura;
+    }
+
+    /**
+     * @param unidadesALeer ID de las únicas unidades cuyo DOM se construye y se entrega. El
+     *                      resto se lee sin construir ningún elemento. {@code null} para
+     *                      entregar todas.
+     */
+    void setUnidadesALeer(Set<String> unidadesALeer) {
+        this.unidadesALeer = unidadesALeer;
+    }
+
+    /**
+     * Termina la lectura al acabar de entregar la unidad actual, sin leer el resto del código.
+     */
+    void terminar() {
+        terminada = true;
+    }
+
+    /**
+     * @return {@code true} si la lectura terminó antes del final del código porque se
+     * llamó a {@code terminar()}.
+     */
+    boolean terminoAntes() {
+        return terminada;
+    }
+
+    /**
+     * @return Los elementos del tag 'xmi:Documentation' leídos.
+     */
+    List<Element> getDocumentacion() {
+        return documentacion;
+    }
+
+    /**
+     * @param tipo Valor del atributo 'xmi:type' de un elemento del tag 'packagedElement'.
+     * @return {@code true} si el elemento es una clase o una interfaz.
+     */
+    static boolean esClase(String tipo) {
+        return !"uml:Model".equals(tipo) && !"uml:DataType".equals(tipo) && !"uml:Package".equals(tipo);
+    }
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) {
+        return new InputSource(new StringReader(""));
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        try {
+            documento = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+        actual = documento;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atributos)
+            throws SAXException {
+        if (++elementos > limites.getMaxElementos()) {
+            throw new SAXException(new LimiteExcedidoException(Limite.ELEMENTOS, limites.getMaxElementos()));
+        }
+        if (++profundidad > limites.getMaxProfundidad()) {
+            throw new SAXException(new LimiteExcedidoException(Limite.PROFUNDIDAD, limites.getMaxProfundidad()));
+        }
+        if (profundidadOmitida != 0) {
+            return;
+        }
+
+        boolean esUnidad = unidad == null && (qName.equals("ownedMember")
+                || qName.equals("packagedElement") && esClase(atributos.getValue("xmi:type")));
+        if (esUnidad && unidadesALeer != null && !unidadesALeer.contains(valor(atributos, "xmi:id"))) {
+            // Unidad que no se necesita: se lee hasta su cierre sin construir nada
+            profundidadOmitida = profundidad;
+            return;
+        }
+
+        if (profundidad == creados.length) {
+            creados = Arrays.copyOf(creados, creados.length * 2);
+        }
+        creados[profundidad] = esUnidad || !soloEstructura || ELEMENTOS_DE_ESTRUCTURA.contains(qName);
+        if (creados[profundidad]) {
+            Element elemento = documento.createElement(qName);
+            for (int i = 0; i < atributos.getLength(); i++) {
+                elemento.setAttribute(atributos.getQName(i), atributos.getValue(i));
+            }
+            actual.appendChild(elemento);
+            actual = elemento;
+            if (esUnidad) {
+                unidad = elemento;
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (profundidadOmitida != 0) {
+            if (profundidad == profundidadOmitida) {
+                profundidadOmitida = 0;
+            }
+        } else if (creados[profundidad]) {
+            Element elemento = (Element) actual;
+            actual = elemento.getParentNode();
+            if (qName.equals("xmi:Documentation")) {
+                documentacion.add(elemento);
+            }
+            if (elemento == unidad) {
+                entregar(elemento);
+                unidad = null;
+            }
+            // Los elementos cerrados fuera de una unidad ya no se necesitan
+            if (unidad == null) {
+                actual.removeChild(elemento);
+            }
+            if (terminada) {
+                throw new SAXException("Lectura terminada antes del final del código.");
+            }
+        }
+        profundidad--;
+    }
+
+    /**
+     * @param unidad Elemento de la unidad recién terminada.
+     * @throws SAXException Si el receptor cancela la lectura.
+     */
+    private void entregar(Element unidad) throws SAXException {
+        boolean esAsociacion = unidad.getNodeName().equals("ownedMember");
+        if (!esAsociacion) {
+            clase(unidad, unidad);
+        }
+        NodeList anidadas = unidad.getElementsByTagName("packagedElement");
+        for (int i = 0; i < anidadas.getLength(); i++) {
+            Element elemento = (Element) anidadas.item(i);
+            if (esClase(elemento.getAttribute("xmi:type"))) {
+                clase(elemento, unidad);
+            }
+        }
+
+        if (esAsociacion) {
+            asociacion(unidad);
+        }
+        NodeList asociaciones = unidad.getElementsByTagName("ownedMember");
+        for (int i = 0; i < asociaciones.getLength(); i++) {
+            asociacion((Element) asociaciones.item(i));
+        }
+    }
+
+    /**
+     * @return El valor del atributo, o una cadena vacía si el elemento no lo tiene, igual que
+     * {@code Element.getAttribute}.
+     */
+    private static String valor(Attributes atributos, String nombre) {
+        String valor = atributos.getValue(nombre);
+        return valor != null ? valor : "";
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Cada uno de los límites de recursos que se verifican durante la conversión.
+ *
+ * @author Josué Andrés Hernández Martínez
+ * @see LimitesConversion
+ */
+public enum Limite {
+    /**
+     * Bytes del código XMI, ya descomprimido si el contenido está comprimido.
+     */
+    BYTES_DE_ENTRADA("bytes de entrada"),
+
+    /**
+     * Elementos XML del documento.
+     */
+    ELEMENTOS("elementos XML"),
+
+    /**
+     * Niveles de anidamiento de los elementos XML.
+     */
+    PROFUNDIDAD("niveles de anidamiento"),
+
+    /**
+     * Expansiones de entidades declaradas en el DTD del documento.
+     */
+    EXPANSION_DE_ENTIDADES("expansiones de entidades"),
+
+    /**
+     * Clases encontradas en el modelo.
+     */
+    CLASES("clases"),
+
+    /**
+     * Bytes del código PHP generado, codificado en UTF-8.
+     */
+    BYTES_DE_SALIDA("bytes de código generado");
+
+    private final String descripcion;
+
+    Limite(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Indica que la conversión se canceló porque el contenido superó uno de los límites de
+ * {@link LimitesConversion}.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+public class LimiteExcedidoException extends GeneradorPHPException {
+    private final Limite limite;
+    private final long maximo;
+
+    public LimiteExcedidoException(Limite limite, long maximo) {
+        super("ERROR EN CONVERSOR PHP: Conversión cancelada. " +
+                "Se superó el límite de " + maximo + " " + limite.getDescripcion() + ".");
+        this.limite = limite;
+        this.maximo = maximo;
+    }
+
+    public Limite getLimite() {
+        return limite;
+    }
+
+    public long getMaximo() {
+        return maximo;
+    }
+}
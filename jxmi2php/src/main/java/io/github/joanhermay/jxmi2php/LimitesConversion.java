@@ -0,0 +1,143 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Límites de recursos de una conversión. Cada límite se verifica mientras el contenido se
+ * lee o se genera, de forma que un archivo que lo supera se rechaza tan pronto como se
+ * detecta, sin terminar de leerlo ni de construir su DOM.
+ *
+ * <p>Los valores por defecto admiten cualquier modelo razonable exportado por StarUML.
+ *
+ * @author Josué Andrés Hernández Martínez
+ * @see LimiteExcedidoException
+ */
+public final class LimitesConversion {
+    private long maxBytesEntrada;
+    private int maxElementos;
+    private int maxProfundidad;
+    private int maxExpansionEntidades;
+    private int maxClases;
+    private long maxBytesSalida;
+
+    public LimitesConversion() {
+        this.maxBytesEntrada = 256L * 1024 * 1024;
+        this.maxElementos = 10_000_000;
+        this.maxProfundidad = 512;
+        this.maxExpansionEntidades = 64_000;
+        this.maxClases = 100_000;
+        this.maxBytesSalida = 1024L * 1024 * 1024;
+    }
+
+    // SETS-GETS
+    public long getMaxBytesEntrada() {
+        return maxBytesEntrada;
+    }
+
+    /**
+     * @param maxBytesEntrada Máximo de bytes del código XMI. Si el contenido está comprimido,
+     *                        se cuentan los bytes ya descomprimidos.
+     */
+    public void setMaxBytesEntrada(long maxBytesEntrada) {
+        if (maxBytesEntrada < 1) {
+            throw new IllegalArgumentException("maxBytesEntrada debe ser mayor que 0");
+        }
+        this.maxBytesEntrada = maxBytesEntrada;
+    }
+
+    public int getMaxElementos() {
+        return maxElementos;
+    }
+
+    /**
+     * @param maxElementos Máximo de elementos XML del documento.
+     */
+    public void setMaxElementos(int maxElementos) {
+        if (maxElementos < 1) {
+            throw new IllegalArgumentException("maxElementos debe ser mayor que 0");
+        }
+        this.maxElementos = maxElementos;
+    }
+
+    public int getMaxProfundidad() {
+        return maxProfundidad;
+    }
+
+    /**
+     * @param maxProfundidad Máximo de niveles de anidamiento de los elementos XML. El
+     *                       elemento raíz está en el nivel 1.
+     */
+    public void setMaxProfundidad(int maxProfundidad) {
+        if (maxProfundidad < 1) {
+            throw new IllegalArgumentException("maxProfundidad debe ser mayor que 0");
+        }
+        this.maxProfundidad = maxProfundidad;
+    }
+
+    public int getMaxExpansionEntidades() {
+        return maxExpansionEntidades;
+    }
+
+    /**
+     * @param maxExpansionEntidades Máximo de expansiones de entidades declaradas en el DTD del
+     *                              documento. Solo se aplica con el analizador XML del JDK.
+     */
+    public void setMaxExpansionEntidades(int maxExpansionEntidades) {
+        if (maxExpansionEntidades < 1) {
+            throw new IllegalArgumentException("maxExpansionEntidades debe ser mayor que 0");
+        }
+        this.maxExpansionEntidades = maxExpansionEntidades;
+    }
+
+    public int getMaxClases() {
+        return maxClases;
+    }
+
+    /**
+     * @param maxClases Máximo de clases del modelo, incluidas las que no forman parte de la
+     *                  selección.
+     */
+    public void setMaxClases(int maxClases) {
+        if (maxClases < 1) {
+            throw new IllegalArgumentException("maxClases debe ser mayor que 0");
+        }
+        this.maxClases = maxClases;
+    }
+
+    public long getMaxBytesSalida() {
+        return maxBytesSalida;
+    }
+
+    /**
+     * @param maxBytesSalida Máximo de bytes del código PHP generado, sumando todos los
+     *                       archivos, codificado en UTF-8.
+     */
+    public void setMaxBytesSalida(long maxBytesSalida) {
+        if (maxBytesSalida < 1) {
+            throw new IllegalArgumentException("maxBytesSalida debe ser mayor que 0");
+        }
+        this.maxBytesSalida = maxBytesSalida;
+    }
+
+    /**
+     * @param cantidad Cantidad de clases del modelo.
+     * @throws LimiteExcedidoException Si la cantidad supera el límite de clases.
+     */
+    void verificarClases(int cantidad) throws LimiteExcedidoException {
+        if (cantidad > maxClases) {
+            throw new LimiteExcedidoException(Limite.CLASES, maxClases);
+        }
+    }
+
+    /**
+     * @param acumulados Bytes generados hasta ahora.
+     * @param nuevos     Bytes del archivo recién generado.
+     * @return El total de bytes generados.
+     * @throws LimiteExcedidoException Si el total supera el límite de bytes de salida.
+     */
+    long verificarSalida(long acumulados, long nuevos) throws LimiteExcedidoException {
+        long total = acumulados + nuevos;
+        if (total > maxBytesSalida) {
+            throw new LimiteExcedidoException(Limite.BYTES_DE_SALIDA, maxBytesSalida);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.util.List;
+
+/**
+ * Clases y asociaciones extraídas de un archivo XMI, antes de resolver las asociaciones.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class ModeloXMI {
+    private final List<Clase> clases;
+    private final List<Asociacion> asociaciones;
+
+    public ModeloXMI(List<Clase> clases, List<Asociacion> asociaciones) {
+        this.clases = clases;
+        this.asociaciones = asociaciones;
+    }
+
+    // GETS
+    public List<Clase> getClases() {
+        return clases;
+    }
+
+    public List<Asociacion> getAsociaciones() {
+        return asociaciones;
+    }
+}
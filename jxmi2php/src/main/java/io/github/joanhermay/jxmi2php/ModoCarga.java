@@ -0,0 +1,27 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Forma en que el código PHP generado carga las clases que necesita.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+public enum ModoCarga {
+    /**
+     * Cada clase hace {@code require_once} de las clases asociadas y el script 'Main' de
+     * todas las clases. Es el modo por defecto.
+     */
+    REQUIRE_ONCE,
+
+    /**
+     * Se genera un archivo 'autoload.php' que registra, con {@code spl_autoload_register},
+     * un mapa estático de cada clase a su archivo. Las clases se cargan solo cuando se usan.
+     */
+    CLASSMAP,
+
+    /**
+     * Se genera un archivo 'autoload.php' que carga las clases según PSR-4, con la ruta de
+     * guardado como directorio base del namespace global. Implica el uso de namespaces y de
+     * la distribución {@link DistribucionArchivos#POR_PAQUETE}.
+     */
+    PSR4
+}
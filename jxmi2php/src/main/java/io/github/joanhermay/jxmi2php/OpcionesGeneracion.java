@@ -0,0 +1,174 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Opciones que modifican el comportamiento de {@link GeneradorPHP} durante la conversión.
+ *
+ * <p>Una instancia recién creada reproduce el comportamiento por defecto del conversor:
+ * se convierten todas las clases encontradas en el archivo.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+public final class OpcionesGeneracion {
+    private final Set<String> seleccion;
+    private boolean namespaces;
+    private DistribucionArchivos distribucion;
+    private int maxEntradasPorDirectorio;
+    private ModoCarga carga;
+    private boolean tipos;
+    private boolean preload;
+    private int capacidadDeCola;
+    private LimitesConversion limites;
+
+    public OpcionesGeneracion() {
+        this.seleccion = new LinkedHashSet<>();
+        this.namespaces = false;
+        this.distribucion = DistribucionArchivos.PLANA;
+        this.maxEntradasPorDirectorio = 1024;
+        this.carga = ModoCarga.REQUIRE_ONCE;
+        this.capacidadDeCola = 64;
+        this.limites = new LimitesConversion();
+    }
+
+    // SETS-GETS
+    public Set<String> getSeleccion() {
+        return seleccion;
+    }
+
+    /**
+     * Limita la conversión a un subconjunto de clases y a todas las clases que estas
+     * alcanzan por medio de asociaciones.
+     *
+     * <p>Cada elemento de la selección puede ser:
+     * <ul>
+     * <li>El {@code xmi:id} de una clase.</li>
+     * <li>El nombre de una clase.</li>
+     * <li>Un patrón sobre el nombre de la clase, donde {@code *} equivale a cualquier
+     * secuencia de caracteres y {@code ?} a un único carácter.</li>
+     * </ul>
+     *
+     * @param seleccion Identificadores, nombres o patrones de las clases a convertir.
+     *                  Una selección vacía convierte todas las clases.
+     */
+    public void setSeleccion(Collection<String> seleccion) {
+        this.seleccion.clear();
+        if (seleccion != null) {
+            this.seleccion.addAll(seleccion);
+        }
+    }
+
+    public void agregarSeleccion(String seleccion) {
+        this.seleccion.add(seleccion);
+    }
+
+    public boolean usaNamespaces() {
+        return namespaces || carga == ModoCarga.PSR4;
+    }
+
+    /**
+     * @param namespaces Si es {@code true}, cada clase declara el {@code namespace} PHP
+     *                   correspondiente a los paquetes UML que la contienen.
+     */
+    public void setNamespaces(boolean namespaces) {
+        this.namespaces = namespaces;
+    }
+
+    public DistribucionArchivos getDistribucion() {
+        return carga == ModoCarga.PSR4 ? DistribucionArchivos.POR_PAQUETE : distribucion;
+    }
+
+    /**
+     * @param distribucion Forma en que se distribuyen los archivos generados. Con cualquier
+     *                     distribución distinta de {@link DistribucionArchivos#PLANA}, las
+     *                     claves del Map generado son rutas relativas separadas por '/'.
+     */
+    public void setDistribucion(DistribucionArchivos distribucion) {
+        this.distribucion = Objects.requireNonNull(distribucion);
+    }
+
+    public int getMaxEntradasPorDirectorio() {
+        return maxEntradasPorDirectorio;
+    }
+
+    /**
+     * @param maxEntradasPorDirectorio Máximo de archivos deseado por directorio en la
+     *                                 distribución {@link DistribucionArchivos#FRAGMENTADA}.
+     */
+    public void setMaxEntradasPorDirectorio(int maxEntradasPorDirectorio) {
+        if (maxEntradasPorDirectorio < 1) {
+            throw new IllegalArgumentException("maxEntradasPorDirectorio debe ser mayor que 0");
+        }
+        this.maxEntradasPorDirectorio = maxEntradasPorDirectorio;
+    }
+
+    public ModoCarga getCarga() {
+        return carga;
+    }
+
+    /**
+     * @param carga Forma en que el código generado carga las clases. Con
+     *              {@link ModoCarga#PSR4} se ignoran las opciones de namespaces y de
+     *              distribución de archivos.
+     */
+    public void setCarga(ModoCarga carga) {
+        this.carga = Objects.requireNonNull(carga);
+    }
+
+    public boolean usaTipos() {
+        return tipos;
+    }
+
+    /**
+     * @param tipos Si es {@code true}, los atributos creados a partir de asociaciones se
+     *              declaran como propiedades tipadas, y sus métodos set y get declaran el
+     *              tipo del parámetro y de retorno. Requiere PHP 7.4 o superior.
+     */
+    public void setTipos(boolean tipos) {
+        this.tipos = tipos;
+    }
+
+    public boolean generaPreload() {
+        return preload;
+    }
+
+    /**
+     * @param preload Si es {@code true}, se genera un archivo 'preload.php', para la
+     *                directiva {@code opcache.preload}, que compila todas las clases
+     *                generadas en orden de dependencias.
+     */
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    public int getCapacidadDeCola() {
+        return capacidadDeCola;
+    }
+
+    /**
+     * @param capacidadDeCola Cantidad máxima de elementos en espera entre dos etapas de la
+     *                        conversión en flujo. Al llenarse, la etapa anterior se detiene
+     *                        hasta que la siguiente avance.
+     */
+    public void setCapacidadDeCola(int capacidadDeCola) {
+        if (capacidadDeCola < 1) {
+            throw new IllegalArgumentException("capacidadDeCola debe ser mayor que 0");
+        }
+        this.capacidadDeCola = capacidadDeCola;
+    }
+
+    public LimitesConversion getLimites() {
+        return limites;
+    }
+
+    /**
+     * @param limites Límites de recursos de la conversión. Al superarse cualquiera de ellos,
+     *                la conversión se cancela con {@link LimiteExcedidoException}.
+     */
+    public void setLimites(LimitesConversion limites) {
+        this.limites = Objects.requireNonNull(limites);
+    }
+}
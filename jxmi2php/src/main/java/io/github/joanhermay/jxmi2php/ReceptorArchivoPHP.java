@@ -0,0 +1,16 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Recibe los archivos generados por {@link GeneradorPHP#generarPHPEnFlujo} a medida que
+ * están listos.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+@FunctionalInterface
+public interface ReceptorArchivoPHP {
+    /**
+     * @param archivo Archivo recién generado.
+     * @throws GeneradorPHPException Si el archivo no puede procesarse. La conversión se detiene.
+     */
+    void recibir(ArchivoPHP archivo) throws GeneradorPHPException;
+}
@@ -0,0 +1,102 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.util.*;
+
+/**
+ * Añade a cada clase los atributos que referencian a las clases con las que está asociada,
+ * a medida que las clases van siendo registradas.
+ *
+ * <p>Una clase queda final cuando todas las clases con las que está asociada han sido
+ * registradas. A partir de ese momento ya puede generarse su código, aunque falten otras
+ * clases por registrar.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class ResolutorDeAsociaciones {
+    private final Map<String, List<Asociacion>> asociacionesPorClase;
+    private final Map<String, Clase> clasesRegistradas;
+    private final Map<String, Integer> asociacionesPendientes;
+
+    /**
+     * @param asociaciones Las asociaciones encontradas en el archivo.
+     * @param idsDeClases  ID de todas las clases que serán registradas. Las asociaciones
+     *                     con algún extremo fuera de este conjunto se ignoran.
+     */
+    public ResolutorDeAsociaciones(List<Asociacion> asociaciones, Set<String> idsDeClases) {
+        this.asociacionesPorClase = new HashMap<>();
+        this.clasesRegistradas = new HashMap<>();
+        this.asociacionesPendientes = new HashMap<>();
+
+        for (Asociacion a : asociaciones) {
+            if (idsDeClases.contains(a.getIdOrigen()) && idsDeClases.contains(a.getIdDestino())) {
+                asociacionesPorClase.computeIfAbsent(a.getIdOrigen(), k -> new ArrayList<>()).add(a);
+                if (!a.getIdDestino().equals(a.getIdOrigen())) {
+                    asociacionesPorClase.computeIfAbsent(a.getIdDestino(), k -> new ArrayList<>()).add(a);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param clase Clase recién extraída del archivo.
+     * @return Las clases que quedaron finales al registrar esta clase, con los atributos de
+     * sus asociaciones ya agregados. Puede incluir a la propia clase.
+     */
+    public List<Clase> registrar(Clase clase) {
+        List<Clase> clasesFinales = new ArrayList<>();
+        if (clasesRegistradas.putIfAbsent(clase.getId(), clase) != null) {
+            // ID repetido, las asociaciones ya pertenecen a la primera clase con ese ID
+            clasesFinales.add(clase);
+            return clasesFinales;
+        }
+
+        int pendientes = 0;
+        for (Asociacion a : asociacionesDe(clase.getId())) {
+            String idOtraClase = a.getIdOrigen().equals(clase.getId()) ? a.getIdDestino() : a.getIdOrigen();
+            if (!clasesRegistradas.containsKey(idOtraClase)) {
+                pendientes++;
+            } else if (!idOtraClase.equals(clase.getId())
+                    && asociacionesPendientes.merge(idOtraClase, -1, Integer::sum) == 0) {
+                clasesFinales.add(completar(clasesRegistradas.get(idOtraClase)));
+            }
+        }
+        asociacionesPendientes.put(clase.getId(), pendientes);
+        if (pendientes == 0) {
+            clasesFinales.add(completar(clase));
+        }
+        return clasesFinales;
+    }
+
+    private List<Asociacion> asociacionesDe(String idClase) {
+        return asociacionesPorClase.getOrDefault(idClase, Collections.emptyList());
+    }
+
+    /**
+     * Agrega a la clase, en el orden en que aparecen las asociaciones en el archivo,
+     * un atributo por cada clase asociada.
+     *
+     * @param clase Clase cuyas clases asociadas ya están todas registradas.
+     * @return La misma clase.
+     */
+    private Clase completar(Clase clase) {
+        for (Asociacion a : asociacionesDe(clase.getId())) {
+            if (a.getIdOrigen().equals(clase.getId())) {
+                clase.agregarAtributo(crearAtributoDeReferencia(clasesRegistradas.get(a.getIdDestino())));
+            }
+            if (a.getIdDestino().equals(clase.getId())) {
+                clase.agregarAtributo(crearAtributoDeReferencia(clasesRegistradas.get(a.getIdOrigen())));
+            }
+        }
+        return clase;
+    }
+
+    private Atributo crearAtributoDeReferencia(Clase claseReferenciada) {
+        Atributo atributo = new Atributo();
+        atributo.setNombre(claseReferenciada.getNombre());
+        atributo.setVisibilidad("private");
+        atributo.setEstatico(false);
+        atributo.setEsReferenciaAUnaClase(true);
+        atributo.setClaseReferenciada(claseReferenciada);
+        return atributo;
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Destino del código PHP generado.
+ *
+ * <p>Distingue los fragmentos fijos del código (palabras clave, indentación, llaves), que
+ * son siempre los mismos, del texto variable que proviene del modelo (nombres de clases,
+ * atributos y métodos).
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+interface SalidaPHP {
+    /**
+     * @param fragmento Fragmento fijo del código. Debe ser una constante del conversor y
+     *                  nunca texto proveniente del modelo.
+     * @return Esta misma salida.
+     */
+    SalidaPHP fijo(String fragmento);
+
+    /**
+     * @param caracter Carácter fijo del código.
+     * @return Esta misma salida.
+     */
+    SalidaPHP fijo(char caracter);
+
+    /**
+     * @param texto Texto variable, proveniente del modelo.
+     * @return Esta misma salida.
+     */
+    SalidaPHP texto(String texto);
+}
@@ -0,0 +1,37 @@
+package io.github.joanhermay.jxmi2php;
+
+/**
+ * Salida que acumula el código PHP generado en un {@code String}.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class SalidaTexto implements SalidaPHP {
+    private final StringBuilder sb;
+
+    public SalidaTexto() {
+        this.sb = new StringBuilder();
+    }
+
+    @Override
+    public SalidaPHP fijo(String fragmento) {
+        sb.append(fragmento);
+        return this;
+    }
+
+    @Override
+    public SalidaPHP fijo(char caracter) {
+        sb.append(caracter);
+        return this;
+    }
+
+    @Override
+    public SalidaPHP texto(String texto) {
+        sb.append(texto);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
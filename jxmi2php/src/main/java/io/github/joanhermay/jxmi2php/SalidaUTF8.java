@@ -0,0 +1,93 @@
+package io.github.joanhermay.jxmi2php;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Salida que acumula el código PHP generado ya codificado en UTF-8, en un único buffer por
+ * archivo, listo para escribirse con una sola escritura.
+ *
+ * <p>Los fragmentos fijos se codifican una sola vez y se comparten entre todos los archivos
+ * generados; en cada archivo solo se copian sus bytes. El texto variable se codifica por cada
+ * archivo, sin pasar por el codificador cuando es ASCII.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class SalidaUTF8 implements SalidaPHP {
+    private static final int TAMANO_INICIAL = 4096;
+
+    // Fragmentos fijos ya codificados, compartidos entre todas las salidas
+    private static final ConcurrentMap<String, byte[]> FRAGMENTOS = new ConcurrentHashMap<>();
+
+    private byte[] bytes;
+    private int tamano;
+
+    public SalidaUTF8() {
+        this.bytes = new byte[TAMANO_INICIAL];
+    }
+
+    @Override
+    public SalidaPHP fijo(String fragmento) {
+        byte[] codificado = FRAGMENTOS.get(fragmento);
+        if (codificado == null) {
+            codificado = fragmento.getBytes(StandardCharsets.UTF_8);
+            FRAGMENTOS.putIfAbsent(fragmento, codificado);
+        }
+        asegurarEspacio(codificado.length);
+        System.arraycopy(codificado, 0, bytes, tamano, codificado.length);
+        tamano += codificado.length;
+        return this;
+    }
+
+    @Override
+    public SalidaPHP fijo(char caracter) {
+        if (caracter < 0x80) {
+            asegurarEspacio(1);
+            bytes[tamano++] = (byte) caracter;
+            return this;
+        }
+        return fijo(String.valueOf(caracter));
+    }
+
+    @Override
+    public SalidaPHP texto(String texto) {
+        int longitud = texto.length();
+        asegurarEspacio(longitud);
+        for (int i = 0; i < longitud; i++) {
+            char c = texto.charAt(i);
+            if (c >= 0x80) {
+                // El resto del texto no es ASCII y pasa por el codificador
+                byte[] resto = texto.substring(i).getBytes(StandardCharsets.UTF_8);
+                asegurarEspacio(resto.length);
+                System.arraycopy(resto, 0, bytes, tamano, resto.length);
+                tamano += resto.length;
+                return this;
+            }
+            bytes[tamano++] = (byte) c;
+        }
+        return this;
+    }
+
+    /**
+     * @return El código completo en un buffer directo, que el sistema operativo puede escribir
+     * sin copiarlo antes fuera del heap. Cada llamada devuelve un buffer independiente.
+     */
+    public ByteBuffer getBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(tamano);
+        buffer.put(bytes, 0, tamano);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @param cantidad Cantidad de bytes que se agregarán.
+     */
+    private void asegurarEspacio(int cantidad) {
+        if (bytes.length - tamano < cantidad) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, tamano + cantidad));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la distribución de los archivos generados: dos clases nunca deben terminar en el
+ * mismo archivo.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class DistribucionArchivosTest {
+    private static final String MISMO_NOMBRE_EN_DOS_PAQUETES =
+            "<packagedElement xmi:id=\"P1\" name=\"Ventas\" xmi:type=\"uml:Package\">"
+                    + "<packagedElement xmi:id=\"C1\" name=\"Foo\" xmi:type=\"uml:Class\">"
+                    + "<ownedAttribute xmi:id=\"A1\" name=\"total\" visibility=\"private\" isStatic=\"false\"/>"
+                    + "</packagedElement></packagedElement>"
+                    + "<packagedElement xmi:id=\"P2\" name=\"Catalogo\" xmi:type=\"uml:Package\">"
+                    + "<packagedElement xmi:id=\"C2\" name=\"Foo\" xmi:type=\"uml:Class\">"
+                    + "<ownedAttribute xmi:id=\"A2\" name=\"precio\" visibility=\"private\" isStatic=\"false\"/>"
+                    + "</packagedElement></packagedElement>";
+
+    private final GeneradorPHP generador = new GeneradorPHP();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void lasClasesConElMismoNombreEnDistintosPaquetesTienenSuPropioArchivo() throws Exception {
+        Path modelo = escribir(MISMO_NOMBRE_EN_DOS_PAQUETES);
+        for (DistribucionArchivos distribucion
+                : new DistribucionArchivos[]{DistribucionArchivos.POR_PAQUETE, DistribucionArchivos.FRAGMENTADA}) {
+            OpcionesGeneracion opciones = new OpcionesGeneracion();
+            opciones.setNamespaces(true);
+            opciones.setDistribucion(distribucion);
+
+            Map<String, String> codigo = generador.generarPHP(modelo, opciones);
+
+            assertEquals(3, codigo.size(), distribucion.toString());
+            String main = codigo.get("Main");
+            assertTrue(main.contains("$foo = new \\Ventas\\Foo();"), distribucion.toString());
+            assertTrue(main.contains("$foo2 = new \\Catalogo\\Foo();"), distribucion.toString());
+            assertTrue(main.contains("$foo2->setPrecio("), distribucion.toString());
+        }
+    }
+
+    @Test
+    void laDistribucionPlanaRechazaDosClasesConElMismoNombre() throws Exception {
+        Path modelo = escribir(MISMO_NOMBRE_EN_DOS_PAQUETES);
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.setNamespaces(true);
+
+        assertThrows(GeneradorPHPException.class, () -> generador.generarPHP(modelo, opciones));
+
+        Map<String, String> recibidos = new HashMap<>();
+        assertThrows(GeneradorPHPException.class, () -> {
+            try (InputStream entrada = Files.newInputStream(modelo)) {
+                generador.generarPHPEnFlujo(entrada, opciones,
+                        archivo -> recibidos.put(archivo.getRutaRelativa(), archivo.getContenido()));
+            }
+        });
+        assertFalse(recibidos.containsKey("Main"));
+    }
+
+    @Test
+    void unaClaseNoReemplazaAlScriptMain() throws Exception {
+        Path modelo = escribir("<packagedElement xmi:id=\"C1\" name=\"Main\" xmi:type=\"uml:Class\"/>");
+
+        assertThrows(GeneradorPHPException.class, () -> generador.generarPHP(modelo));
+    }
+
+    private Path escribir(String clases) throws IOException {
+        String xmi = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<xmi:XMI xmi:version=\"2.1\" xmlns:uml=\"http://schema.omg.org/spec/UML/2.0\""
+                + " xmlns:xmi=\"http://schema.omg.org/spec/XMI/2.1\">"
+                + "<xmi:Documentation exporter=\"StarUML\" exporterVersion=\"2.0\"/>"
+                + "<uml:Model xmi:id=\"M\" xmi:type=\"uml:Model\" name=\"RootModel\">"
+                + "<packagedElement xmi:id=\"M1\" name=\"Model\" xmi:type=\"uml:Model\">"
+                + clases
+                + "</packagedElement></uml:Model></xmi:XMI>";
+        Path archivo = directorio.resolve("modelo.xmi");
+        Files.write(archivo, xmi.getBytes(StandardCharsets.UTF_8));
+        return archivo;
+    }
+}
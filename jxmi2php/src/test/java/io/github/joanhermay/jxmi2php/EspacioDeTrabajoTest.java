@@ -0,0 +1,121 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la conversión de varios archivos XMI como un único modelo.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class EspacioDeTrabajoTest {
+    @TempDir
+    Path directorio;
+
+    @Test
+    void laClaseDelPrimerArchivoPrevaleceSobreLaRepetida() throws Exception {
+        Path personas = escribir("personas.xmi",
+                "<packagedElement xmi:id=\"C1\" name=\"Persona\" xmi:type=\"uml:Class\">"
+                        + "<ownedMember xmi:id=\"A1\" xmi:type=\"uml:Association\">"
+                        + "<ownedEnd xmi:id=\"E1\" type=\"C1\"/><ownedEnd xmi:id=\"E2\" type=\"C2\"/>"
+                        + "</ownedMember></packagedElement>"
+                        + "<packagedElement xmi:id=\"C2\" name=\"Direccion\" xmi:type=\"uml:Class\"/>");
+        Path direcciones = escribir("direcciones.xmi",
+                "<packagedElement xmi:id=\"C2\" name=\"Direccion\" xmi:type=\"uml:Class\"/>"
+                        + "<packagedElement xmi:id=\"C3\" name=\"Ciudad\" xmi:type=\"uml:Class\"/>");
+
+        EspacioDeTrabajo espacio = new EspacioDeTrabajo();
+        espacio.agregarModelo(personas);
+        espacio.agregarModelo(direcciones);
+        Map<String, String> codigo = espacio.generarPHP();
+
+        assertEquals(personas.toAbsolutePath().normalize(), espacio.buscarModeloDeClase("C2").get());
+        assertTrue(codigo.get("Direccion").contains("$persona"));
+        assertTrue(codigo.containsKey("Ciudad"));
+        String main = codigo.get("Main");
+        assertEquals(main.indexOf("require_once 'Direccion.php'"), main.lastIndexOf("require_once 'Direccion.php'"));
+        assertEquals(main.indexOf("new Direccion()"), main.lastIndexOf("new Direccion()"));
+    }
+
+    @Test
+    void resuelveLasAsociacionesConClasesDeOtroArchivo() throws Exception {
+        Path pedidos = escribir("pedidos.xmi",
+                "<packagedElement xmi:id=\"C1\" name=\"Pedido\" xmi:type=\"uml:Class\">"
+                        + "<ownedMember xmi:id=\"A1\" xmi:type=\"uml:Association\">"
+                        + "<ownedEnd xmi:id=\"E1\" type=\"C1\"/><ownedEnd xmi:id=\"E2\" type=\"C2\"/>"
+                        + "</ownedMember></packagedElement>");
+        Path clientes = escribir("clientes.xmi",
+                "<packagedElement xmi:id=\"C2\" name=\"Cliente\" xmi:type=\"uml:Class\"/>");
+
+        EspacioDeTrabajo espacio = new EspacioDeTrabajo();
+        espacio.agregarModelo(pedidos);
+        espacio.agregarModelo(clientes);
+        Map<String, String> codigo = espacio.generarPHP();
+
+        assertTrue(codigo.get("Pedido").contains("private $cliente;"));
+        assertTrue(codigo.get("Cliente").contains("private $pedido;"));
+        assertTrue(codigo.get("Main").contains("$pedido->setCliente("));
+    }
+
+    @Test
+    void soloVuelveAAnalizarLosArchivosQueCambiaron() throws Exception {
+        Path pedidos = escribir("pedidos.xmi",
+                "<packagedElement xmi:id=\"C1\" name=\"Pedido\" xmi:type=\"uml:Class\"/>");
+        Path clientes = escribir("clientes.xmi",
+                "<packagedElement xmi:id=\"C2\" name=\"Cliente\" xmi:type=\"uml:Class\"/>");
+        EspacioDeTrabajo espacio = new EspacioDeTrabajo();
+        espacio.agregarModelo(pedidos);
+        espacio.agregarModelo(clientes);
+
+        assertEquals(new HashSet<>(Arrays.asList(normalizar(pedidos), normalizar(clientes))), espacio.actualizar());
+        assertEquals(Collections.emptySet(), espacio.actualizar());
+
+        escribir("clientes.xmi",
+                "<packagedElement xmi:id=\"C2\" name=\"Cliente\" xmi:type=\"uml:Class\"/>"
+                        + "<packagedElement xmi:id=\"C3\" name=\"Ciudad\" xmi:type=\"uml:Class\"/>");
+        assertEquals(Collections.singleton(normalizar(clientes)), espacio.actualizar());
+        assertEquals(normalizar(clientes), espacio.buscarModeloDeClase("C3").get());
+        assertEquals(normalizar(pedidos), espacio.buscarModeloDeClase("C1").get());
+    }
+
+    @Test
+    void elIndiceIncluyeLosArchivosAnalizadosAntesDeUnError() throws Exception {
+        Path pedidos = escribir("pedidos.xmi",
+                "<packagedElement xmi:id=\"C1\" name=\"Pedido\" xmi:type=\"uml:Class\"/>");
+        EspacioDeTrabajo espacio = new EspacioDeTrabajo();
+        espacio.agregarModelo(pedidos);
+        espacio.agregarModelo(directorio.resolve("no-existe.xmi"));
+
+        assertThrows(GeneradorPHPException.class, espacio::actualizar);
+        assertEquals(normalizar(pedidos), espacio.buscarModeloDeClase("C1").get());
+    }
+
+    private static Path normalizar(Path archivo) {
+        return archivo.toAbsolutePath().normalize();
+    }
+
+    private Path escribir(String nombre, String clases) throws IOException {
+        String xmi = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<xmi:XMI xmi:version=\"2.1\" xmlns:uml=\"http://schema.omg.org/spec/UML/2.0\""
+                + " xmlns:xmi=\"http://schema.omg.org/spec/XMI/2.1\">"
+                + "<xmi:Documentation exporter=\"StarUML\" exporterVersion=\"2.0\"/>"
+                + "<uml:Model xmi:id=\"M\" xmi:type=\"uml:Model\" name=\"RootModel\">"
+                + "<packagedElement xmi:id=\"M1\" name=\"Model\" xmi:type=\"uml:Model\">"
+                + clases
+                + "</packagedElement></uml:Model></xmi:XMI>";
+        Path archivo = directorio.resolve(nombre);
+        Files.write(archivo, xmi.getBytes(StandardCharsets.UTF_8));
+        return archivo;
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las entradas del conversor: la compresión se detecta por el contenido y los
+ * flujos y canales de quien llama nunca se cierran.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class GeneradorPHPEntradaTest {
+    private final GeneradorPHP generador = new GeneradorPHP();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void elContenidoComprimidoConGzipGeneraLoMismoQueSinComprimir() throws Exception {
+        Map<String, String> esperado = generador.generarPHP(modelo());
+        byte[] comprimido = gzip(Files.readAllBytes(modelo()));
+
+        // La extensión no indica la compresión: solo la detectan los primeros bytes
+        Path archivo = directorio.resolve("modelo.xmi");
+        Files.write(archivo, comprimido);
+        assertEquals(esperado, generador.generarPHP(archivo));
+        assertEquals(esperado, generador.generarPHP(new ByteArrayInputStream(comprimido)));
+
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.agregarSeleccion("Pedido");
+        assertEquals(generador.generarPHP(modelo(), opciones), generador.generarPHP(archivo, opciones));
+    }
+
+    @Test
+    void rechazaElContenidoComprimidoConZstd() throws Exception {
+        byte[] zstd = Arrays.copyOf(new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd}, 64);
+        Path archivo = directorio.resolve("modelo.xmi.zst");
+        Files.write(archivo, zstd);
+
+        GeneradorPHPException desdeFlujo = assertThrows(GeneradorPHPException.class,
+                () -> generador.generarPHP(new ByteArrayInputStream(zstd)));
+        assertTrue(desdeFlujo.getMessage().contains("zstd"), desdeFlujo.getMessage());
+
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.agregarSeleccion("Pedido");
+        GeneradorPHPException desdeArchivo = assertThrows(GeneradorPHPException.class,
+                () -> generador.generarPHP(archivo, opciones));
+        assertTrue(desdeArchivo.getMessage().contains("zstd"), desdeArchivo.getMessage());
+    }
+
+    @Test
+    void noCierraLosFlujosNiLosCanalesDeQuienLlama() throws Exception {
+        byte[] contenido = Files.readAllBytes(modelo());
+        byte[] comprimido = gzip(contenido);
+
+        for (byte[] bytes : new byte[][]{contenido, comprimido}) {
+            FlujoVigilado flujo = new FlujoVigilado(new ByteArrayInputStream(bytes));
+            assertFalse(generador.generarPHP(flujo).isEmpty());
+            assertFalse(flujo.cerrado);
+
+            FlujoVigilado flujoEnFlujo = new FlujoVigilado(new ByteArrayInputStream(bytes));
+            generador.generarPHPEnFlujo(flujoEnFlujo, new OpcionesGeneracion(), archivo -> {
+            });
+            assertFalse(flujoEnFlujo.cerrado);
+
+            CanalVigilado canal = new CanalVigilado(Channels.newChannel(new ByteArrayInputStream(bytes)));
+            assertFalse(generador.generarPHP(canal).isEmpty());
+            assertTrue(canal.isOpen());
+        }
+
+        // Tampoco cuando la conversión falla
+        FlujoVigilado invalido = new FlujoVigilado(new ByteArrayInputStream("<xmi".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(GeneradorPHPException.class, () -> generador.generarPHP(invalido));
+        assertFalse(invalido.cerrado);
+    }
+
+    private static byte[] gzip(byte[] contenido) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream salida = new GZIPOutputStream(bytes)) {
+            salida.write(contenido);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Path modelo() throws URISyntaxException {
+        return Paths.get(GeneradorPHPEntradaTest.class.getResource("/modelo.xmi").toURI());
+    }
+
+    /**
+     * Flujo que registra si se cerró.
+     */
+    private static final class FlujoVigilado extends FilterInputStream {
+        private boolean cerrado;
+
+        FlujoVigilado(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public void close() throws IOException {
+            cerrado = true;
+            super.close();
+        }
+    }
+
+    /**
+     * Canal que registra si se cerró.
+     */
+    private static final class CanalVigilado implements ReadableByteChannel {
+        private final ReadableByteChannel canal;
+        private boolean cerrado;
+
+        CanalVigilado(ReadableByteChannel canal) {
+            this.canal = canal;
+        }
+
+        @Override
+        public int read(ByteBuffer destino) throws IOException {
+            return canal.read(destino);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !cerrado;
+        }
+
+        @Override
+        public void close() throws IOException {
+            cerrado = true;
+            canal.close();
+        }
+    }
+}
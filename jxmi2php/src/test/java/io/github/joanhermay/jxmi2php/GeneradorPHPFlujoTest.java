@@ -0,0 +1,132 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la conversión en flujo: debe generar el mismo código que la conversión a
+ * {@code Map} y no debe terminar normalmente si alguna etapa o el receptor falla.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class GeneradorPHPFlujoTest {
+    private final GeneradorPHP generador = new GeneradorPHP();
+
+    @Test
+    void generaLoMismoQueLaConversionAMap() throws Exception {
+        for (ModoCarga carga : ModoCarga.values()) {
+            for (DistribucionArchivos distribucion : DistribucionArchivos.values()) {
+                for (int capacidad : new int[]{1, 64}) {
+                    OpcionesGeneracion opciones = new OpcionesGeneracion();
+                    opciones.setCarga(carga);
+                    opciones.setDistribucion(distribucion);
+                    opciones.setCapacidadDeCola(capacidad);
+                    opciones.setTipos(true);
+                    opciones.setPreload(true);
+
+                    Map<String, String> recibidos = new HashMap<>();
+                    try (InputStream entrada = Files.newInputStream(modelo())) {
+                        generador.generarPHPEnFlujo(entrada, opciones,
+                                archivo -> recibidos.put(archivo.getRutaRelativa(), archivo.getContenido()));
+                    }
+                    Map<String, String> recibidosDelArchivo = new HashMap<>();
+                    generador.generarPHPEnFlujo(modelo().toString(), opciones,
+                            archivo -> recibidosDelArchivo.put(archivo.getRutaRelativa(), archivo.getContenido()));
+
+                    Map<String, String> esperados = generador.generarPHP(modelo(), opciones);
+                    assertEquals(esperados, recibidos, carga + " " + distribucion + " " + capacidad);
+                    assertEquals(esperados, recibidosDelArchivo, carga + " " + distribucion + " " + capacidad);
+                }
+            }
+        }
+    }
+
+    @Test
+    void generaLoMismoQueLaConversionAMapConUnaSeleccion() throws Exception {
+        for (String seleccion : new String[]{"Pedido", "Cat*", "Suelta"}) {
+            OpcionesGeneracion opciones = new OpcionesGeneracion();
+            opciones.setCapacidadDeCola(1);
+            opciones.agregarSeleccion(seleccion);
+
+            Map<String, String> recibidos = new HashMap<>();
+            generador.generarPHPEnFlujo(modelo().toString(), opciones,
+                    archivo -> recibidos.put(archivo.getRutaRelativa(), archivo.getContenido()));
+
+            assertEquals(generador.generarPHP(modelo(), opciones), recibidos, seleccion);
+        }
+    }
+
+    @Test
+    void elErrorDelReceptorDetieneLaLecturaDelArchivo() {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.setCapacidadDeCola(1);
+        GeneradorPHPException error = new GeneradorPHPException("receptor");
+        List<String> recibidos = new ArrayList<>();
+
+        // La segunda lectura del archivo queda bloqueada en la cola; la llamada no debe quedarse esperando
+        GeneradorPHPException lanzada = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(GeneradorPHPException.class, () ->
+                        generador.generarPHPEnFlujo(modelo().toString(), opciones, archivo -> {
+                            recibidos.add(archivo.getRutaRelativa());
+                            throw error;
+                        })));
+
+        assertSame(error, lanzada);
+        assertEquals(1, recibidos.size());
+    }
+
+    @Test
+    void elErrorDelReceptorDetieneLaConversion() {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.setCapacidadDeCola(1);
+        GeneradorPHPException error = new GeneradorPHPException("receptor");
+        List<String> recibidos = new ArrayList<>();
+
+        // Con colas de capacidad 1 las etapas quedan bloqueadas; la llamada no debe quedarse esperando
+        GeneradorPHPException lanzada = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(GeneradorPHPException.class, () -> {
+                    try (InputStream entrada = Files.newInputStream(modelo())) {
+                        generador.generarPHPEnFlujo(entrada, opciones, archivo -> {
+                            recibidos.add(archivo.getRutaRelativa());
+                            throw error;
+                        });
+                    }
+                }));
+
+        assertSame(error, lanzada);
+        assertEquals(1, recibidos.size());
+    }
+
+    @Test
+    void elErrorDeUnaEtapaNoEntregaUnMainIncompleto() {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.getLimites().setMaxBytesSalida(1);
+        List<String> recibidos = new ArrayList<>();
+
+        LimiteExcedidoException lanzada = assertThrows(LimiteExcedidoException.class, () -> {
+            try (InputStream entrada = Files.newInputStream(modelo())) {
+                generador.generarPHPEnFlujo(entrada, opciones, archivo -> recibidos.add(archivo.getRutaRelativa()));
+            }
+        });
+
+        assertEquals(Limite.BYTES_DE_SALIDA, lanzada.getLimite());
+        assertFalse(recibidos.contains("Main"));
+    }
+
+    private static Path modelo() throws URISyntaxException, IOException {
+        return Paths.get(GeneradorPHPFlujoTest.class.getResource("/modelo.xmi").toURI());
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la conversión de una selección de clases: un archivo, que se lee en dos pasadas,
+ * y un flujo, que se lee en una sola, deben generar las mismas clases.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class GeneradorPHPSeleccionTest {
+    private final GeneradorPHP generador = new GeneradorPHP();
+
+    @Test
+    void unArchivoYUnFlujoGeneranLaMismaSeleccion() throws Exception {
+        for (String[] seleccion : new String[][]{{"Pedido"}, {"Cat*"}, {"Suelta"}, {"Imprimible", "Cliente"}}) {
+            OpcionesGeneracion opciones = new OpcionesGeneracion();
+            opciones.setTipos(true);
+            for (String s : seleccion) {
+                opciones.agregarSeleccion(s);
+            }
+
+            Map<String, String> desdeFlujo;
+            try (InputStream entrada = Files.newInputStream(modelo())) {
+                desdeFlujo = generador.generarPHP(entrada, opciones);
+            }
+            assertEquals(desdeFlujo, generador.generarPHP(modelo(), opciones), Arrays.toString(seleccion));
+        }
+    }
+
+    @Test
+    void generaLasSeleccionadasYLasQueAlcanzanPorAsociaciones() throws Exception {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.agregarSeleccion("Pedido");
+
+        Map<String, String> codigo = generador.generarPHP(modelo(), opciones);
+
+        assertEquals(new HashSet<>(Arrays.asList("Main", "Pedido", "Cliente", "Producto")), codigo.keySet());
+        assertEquals(generador.generarPHP(modelo()).get("Pedido"), codigo.get("Pedido"));
+    }
+
+    @Test
+    void rechazaUnaSeleccionSinCoincidencias() {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.agregarSeleccion("NoExiste*");
+
+        assertThrows(GeneradorPHPException.class, () -> generador.generarPHP(modelo(), opciones));
+    }
+
+    private static Path modelo() throws URISyntaxException {
+        return Paths.get(GeneradorPHPSeleccionTest.class.getResource("/modelo.xmi").toURI());
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las instantáneas del modelo: deben reproducir el mismo código que el archivo
+ * XMI original, y una instantánea dañada debe rechazarse con {@link GeneradorPHPException}.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class InstantaneaModeloTest {
+    private final GeneradorPHP generador = new GeneradorPHP();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void generaLoMismoQueElArchivoXMI() throws Exception {
+        Path instantanea = directorio.resolve("modelo.jx2p");
+        generador.generarInstantanea(modelo(), instantanea);
+
+        for (ModoCarga carga : ModoCarga.values()) {
+            for (String seleccion : new String[]{null, "Pedido"}) {
+                OpcionesGeneracion opciones = new OpcionesGeneracion();
+                opciones.setCarga(carga);
+                opciones.setTipos(true);
+                if (seleccion != null) {
+                    opciones.agregarSeleccion(seleccion);
+                }
+                assertEquals(generador.generarPHP(modelo(), opciones),
+                        generador.generarPHPDesdeInstantanea(instantanea, opciones), carga + " " + seleccion);
+            }
+        }
+    }
+
+    @Test
+    void rechazaUnaInstantaneaTruncada() throws Exception {
+        Path instantanea = directorio.resolve("modelo.jx2p");
+        generador.generarInstantanea(modelo(), instantanea);
+        byte[] completa = Files.readAllBytes(instantanea);
+
+        for (int longitud = 0; longitud < completa.length; longitud++) {
+            byte[] truncada = Arrays.copyOf(completa, longitud);
+            assertThrows(GeneradorPHPException.class,
+                    () -> InstantaneaModelo.leer(new ByteArrayInputStream(truncada)), "longitud " + longitud);
+        }
+    }
+
+    @Test
+    void rechazaCantidadesDanadasSinReservarMemoria() {
+        // Cantidad de cadenas enorme, cantidad negativa y longitud de cadena enorme
+        for (int[] enteros : new int[][]{{0x7ffffffe}, {-1}, {1, 0x7ffffffe}, {1, -2}}) {
+            byte[] danada = instantanea(enteros);
+            assertThrows(GeneradorPHPException.class,
+                    () -> InstantaneaModelo.leer(new ByteArrayInputStream(danada)), Arrays.toString(enteros));
+        }
+    }
+
+    @Test
+    void rechazaUnArchivoQueNoEsInstantanea() {
+        byte[] otro = {'<', '?', 'x', 'm', 'l'};
+        assertThrows(GeneradorPHPException.class, () -> InstantaneaModelo.leer(new ByteArrayInputStream(otro)));
+    }
+
+    /**
+     * @param enteros Enteros a escribir después de la firma y la versión.
+     * @return Instantánea con los enteros indicados, sin ningún otro contenido.
+     */
+    private static byte[] instantanea(int... enteros) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeBytes("JX2P");
+            out.writeByte(1);
+            for (int valor : enteros) {
+                while ((valor & ~0x7f) != 0) {
+                    out.writeByte((valor & 0x7f) | 0x80);
+                    valor >>>= 7;
+                }
+                out.writeByte(valor);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Path modelo() throws URISyntaxException {
+        return Paths.get(InstantaneaModeloTest.class.getResource("/modelo.xmi").toURI());
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los límites de la conversión sobre el contenido leído.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class LimitesConversionTest {
+    @TempDir
+    Path directorio;
+
+    @Test
+    void noLeeEntidadesNiDTDExternos() throws Exception {
+        Path externo = directorio.resolve("externo.txt");
+        Files.write(externo, "contenido externo".getBytes(StandardCharsets.UTF_8));
+        String xmi = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<!DOCTYPE xmi:XMI SYSTEM \"" + directorio.resolve("no-existe.dtd").toUri() + "\" ["
+                + "<!ENTITY externo SYSTEM \"" + externo.toUri() + "\">]>"
+                + "<xmi:XMI xmi:version=\"2.1\">"
+                + "<xmi:Documentation exporter=\"StarUML\" exporterVersion=\"2.0\"/>"
+                + "<uml:Model xmi:id=\"M\" xmi:type=\"uml:Model\" name=\"RootModel\">"
+                + "<packagedElement xmi:id=\"C1\" name=\"Persona\" xmi:type=\"uml:Class\">&externo;</packagedElement>"
+                + "</uml:Model></xmi:XMI>";
+
+        // Solo el contenido del propio archivo cuenta para el límite de entrada
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.getLimites().setMaxBytesEntrada(xmi.getBytes(StandardCharsets.UTF_8).length);
+        Map<String, String> codigo = new GeneradorPHP().generarPHP(
+                new ByteArrayInputStream(xmi.getBytes(StandardCharsets.UTF_8)), opciones);
+
+        assertTrue(codigo.containsKey("Persona"));
+    }
+
+    @Test
+    void rechazaElContenidoQueSuperaUnLimite() {
+        String xmi = "<?xml version=\"1.0\"?>" + repetir("<a>", 1000) + repetir("</a>", 1000);
+        LimiteExcedidoException lanzada = assertThrows(LimiteExcedidoException.class, () -> new GeneradorPHP()
+                .generarPHP(new ByteArrayInputStream(xmi.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(Limite.PROFUNDIDAD, lanzada.getLimite());
+    }
+
+    @Test
+    void rechazaElModeloConMasElementosQueElLimite() throws Exception {
+        LimitesConversion limites = new LimitesConversion();
+        limites.setMaxElementos(20);
+
+        assertLimiteExcedido(Limite.ELEMENTOS, limites);
+    }
+
+    @Test
+    void rechazaElModeloConMasClasesQueElLimite() throws Exception {
+        LimitesConversion limites = new LimitesConversion();
+        limites.setMaxClases(2);
+
+        assertLimiteExcedido(Limite.CLASES, limites);
+
+        Path instantanea = directorio.resolve("modelo.bin");
+        LimiteExcedidoException lanzada = assertThrows(LimiteExcedidoException.class,
+                () -> new GeneradorPHP().generarInstantanea(modelo(), instantanea, limites));
+        assertEquals(Limite.CLASES, lanzada.getLimite());
+        assertFalse(Files.exists(instantanea));
+    }
+
+    @Test
+    void rechazaElContenidoConMasExpansionesDeEntidadesQueElLimite() {
+        String xmi = "<?xml version=\"1.0\"?>"
+                + "<!DOCTYPE xmi:XMI [<!ENTITY risa \"ja\">]>"
+                + "<xmi:XMI xmi:version=\"2.1\">" + repetir("&risa;", 100) + "</xmi:XMI>";
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.getLimites().setMaxExpansionEntidades(10);
+
+        LimiteExcedidoException lanzada = assertThrows(LimiteExcedidoException.class, () -> new GeneradorPHP()
+                .generarPHP(new ByteArrayInputStream(xmi.getBytes(StandardCharsets.UTF_8)), opciones));
+        assertEquals(Limite.EXPANSION_DE_ENTIDADES, lanzada.getLimite());
+    }
+
+    @Test
+    void elLimiteDeEntradaCuentaLosBytesDescomprimidos() throws Exception {
+        // Unos 20 KB comprimidos que se descomprimen en 64 MB de espacios
+        Path bomba = directorio.resolve("bomba.xmi");
+        try (OutputStream salida = new GZIPOutputStream(Files.newOutputStream(bomba))) {
+            salida.write("<?xml version=\"1.0\"?><xmi:XMI xmi:version=\"2.1\">".getBytes(StandardCharsets.UTF_8));
+            byte[] espacios = new byte[1024 * 1024];
+            Arrays.fill(espacios, (byte) ' ');
+            for (int i = 0; i < 64; i++) {
+                salida.write(espacios);
+            }
+            salida.write("</xmi:XMI>".getBytes(StandardCharsets.UTF_8));
+        }
+        LimitesConversion limites = new LimitesConversion();
+        limites.setMaxBytesEntrada(1024 * 1024);
+        assertTrue(Files.size(bomba) < limites.getMaxBytesEntrada());
+
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.setLimites(limites);
+        LimiteExcedidoException lanzada = assertThrows(LimiteExcedidoException.class,
+                () -> new GeneradorPHP().generarPHP(bomba, opciones));
+        assertEquals(Limite.BYTES_DE_ENTRADA, lanzada.getLimite());
+
+        lanzada = assertThrows(LimiteExcedidoException.class,
+                () -> new GeneradorPHP().generarInstantanea(bomba, directorio.resolve("bomba.bin"), limites));
+        assertEquals(Limite.BYTES_DE_ENTRADA, lanzada.getLimite());
+    }
+
+    /**
+     * Verifica que el modelo de prueba supere el límite en cada forma de conversión.
+     */
+    private void assertLimiteExcedido(Limite limite, LimitesConversion limites) throws Exception {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.setLimites(limites);
+        OpcionesGeneracion conSeleccion = new OpcionesGeneracion();
+        conSeleccion.setLimites(limites);
+        conSeleccion.agregarSeleccion("Pedido");
+        GeneradorPHP generador = new GeneradorPHP();
+
+        List<Executable> conversiones = Arrays.asList(
+                () -> generador.generarPHP(modelo(), opciones),
+                () -> generador.generarPHP(modelo(), conSeleccion),
+                () -> generador.generarPHPEnFlujo(modelo().toString(), opciones, archivo -> {
+                }),
+                () -> generador.generarInstantanea(modelo(), directorio.resolve("modelo.bin"), limites));
+        for (Executable conversion : conversiones) {
+            assertEquals(limite, assertThrows(LimiteExcedidoException.class, conversion).getLimite());
+        }
+
+        EspacioDeTrabajo espacio = new EspacioDeTrabajo();
+        espacio.agregarModelo(modelo());
+        assertEquals(limite, assertThrows(LimiteExcedidoException.class,
+                () -> espacio.actualizar(limites)).getLimite());
+    }
+
+    private static Path modelo() throws URISyntaxException {
+        return Paths.get(LimitesConversionTest.class.getResource("/modelo.xmi").toURI());
+    }
+
+    private static String repetir(String texto, int veces) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < veces; i++) {
+            sb.append(texto);
+        }
+        return sb.toString();
+    }
+}
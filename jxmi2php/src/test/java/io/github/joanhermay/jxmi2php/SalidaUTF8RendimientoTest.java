@@ -0,0 +1,98 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el tiempo de generar y escribir cada clase ya codificada en UTF-8 con el de generar
+ * el código como texto y codificarlo después, como se hacía antes de {@code SalidaUTF8}.
+ *
+ * <p>No forma parte de la tarea 'test'; se ejecuta con 'gradle rendimiento'.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+@Tag("rendimiento")
+class SalidaUTF8RendimientoTest {
+    private static final int CLASES = 2000;
+    private static final int RONDAS = 15;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void generarYaCodificadoEsMasRapidoQueCodificarElTexto() throws IOException {
+        List<Clase> clases = clases();
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+
+        try (FileChannel canal = FileChannel.open(directorio.resolve("salida.php"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long mejorTexto = Long.MAX_VALUE;
+            long mejorUTF8 = Long.MAX_VALUE;
+            for (int ronda = 0; ronda < RONDAS; ronda++) {
+                long inicio = System.nanoTime();
+                for (Clase clase : clases) {
+                    escribir(canal, ByteBuffer.wrap(clase.generarCodigo(opciones).getBytes(StandardCharsets.UTF_8)));
+                }
+                mejorTexto = Math.min(mejorTexto, System.nanoTime() - inicio);
+
+                inicio = System.nanoTime();
+                for (Clase clase : clases) {
+                    escribir(canal, clase.generarCodigoUTF8(opciones));
+                }
+                mejorUTF8 = Math.min(mejorUTF8, System.nanoTime() - inicio);
+            }
+
+            System.out.printf("Texto codificado después: %d ns por clase%n", mejorTexto / CLASES);
+            System.out.printf("Ya codificado en UTF-8:   %d ns por clase%n", mejorUTF8 / CLASES);
+            assertTrue(mejorUTF8 < mejorTexto, "UTF-8: " + mejorUTF8 + " ns, texto: " + mejorTexto + " ns");
+        }
+    }
+
+    private static void escribir(FileChannel canal, ByteBuffer buffer) throws IOException {
+        long posicion = 0;
+        while (buffer.hasRemaining()) {
+            posicion += canal.write(buffer, posicion);
+        }
+    }
+
+    /**
+     * @return Clases de un tamaño habitual, de unos 4 KB de código cada una.
+     */
+    private static List<Clase> clases() {
+        List<Clase> clases = new ArrayList<>(CLASES);
+        for (int i = 0; i < CLASES; i++) {
+            Clase clase = new Clase();
+            clase.setId("C" + i);
+            clase.setNombre("Clase" + i);
+            for (int j = 0; j < 12; j++) {
+                Atributo atributo = new Atributo();
+                atributo.setNombre("atributo" + j);
+                atributo.setVisibilidad("private");
+                clase.agregarAtributo(atributo);
+            }
+            List<Metodo> metodos = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                Metodo metodo = new Metodo();
+                metodo.setNombre("operacion" + j);
+                metodo.setVisibilidad("public");
+                metodo.agregarParametro("valor");
+                metodos.add(metodo);
+            }
+            clase.setMetodos(metodos);
+            clases.add(clase);
+        }
+        return clases;
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.joanhermay.jxmi2php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la salida ya codificada en UTF-8: debe generar exactamente los mismos bytes que
+ * el código como texto, sin depender del charset de la plataforma.
+ *
+ * <p>La tarea 'test' ejecuta las pruebas con ISO-8859-1 como charset de la plataforma.
+ *
+ * @author Josué Andrés Hernández Martínez
+ */
+class SalidaUTF8Test {
+    // Los nombres de los archivos son ASCII; el contenido no
+    private static final String CLASES =
+            "<packagedElement xmi:id=\"P1\" name=\"Musica\" xmi:type=\"uml:Package\">"
+                    + "<packagedElement xmi:id=\"C1\" name=\"Cancion\" xmi:type=\"uml:Class\">"
+                    + "<ownedAttribute xmi:id=\"A1\" name=\"a&#xF1;o\" visibility=\"private\" isStatic=\"false\"/>"
+                    + "<ownedAttribute xmi:id=\"A2\" name=\"&#x1F3B5;nota\" visibility=\"public\" isStatic=\"true\"/>"
+                    + "<ownedOperation xmi:id=\"O1\" name=\"Cancion\" visibility=\"public\">"
+                    + "<ownedParameter xmi:id=\"O1P1\" name=\"t&#xED;tulo\"/></ownedOperation>"
+                    + "<ownedOperation xmi:id=\"O2\" name=\"reproducir\" visibility=\"public\">"
+                    + "<ownedParameter xmi:id=\"O2P1\" name=\"&#xED;ndice\"/></ownedOperation>"
+                    + "</packagedElement>"
+                    + "<packagedElement xmi:id=\"C2\" name=\"Album\" xmi:type=\"uml:Class\">"
+                    + "<ownedAttribute xmi:id=\"A3\" name=\"t&#xED;tulo\" visibility=\"private\" isStatic=\"false\"/>"
+                    + "</packagedElement></packagedElement>"
+                    + "<ownedMember xmi:id=\"AS1\" name=\"contiene\" xmi:type=\"uml:Association\">"
+                    + "<ownedEnd xmi:id=\"E1\" name=\"\" type=\"C2\"/>"
+                    + "<ownedEnd xmi:id=\"E2\" name=\"\" type=\"C1\"/>"
+                    + "</ownedMember>";
+
+    private final GeneradorPHP generador = new GeneradorPHP();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cadaClaseSeCodificaEnUnSoloBufferDirectoConLosBytesDelTexto() throws Exception {
+        Path modelo = escribirModelo();
+        for (ModoCarga carga : ModoCarga.values()) {
+            OpcionesGeneracion opciones = opciones();
+            opciones.setCarga(carga);
+            Map<String, String> esperados = generador.generarPHP(modelo, opciones);
+
+            int[] recibidos = {0};
+            generador.generarPHPEnFlujo(modelo.toString(), opciones, archivo -> {
+                String esperado = esperados.get(archivo.getRutaRelativa());
+                assertNotNull(esperado, archivo.getRutaRelativa());
+
+                ByteBuffer buffer = archivo.getBytes();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                assertArrayEquals(esperado.getBytes(StandardCharsets.UTF_8), bytes, archivo.getRutaRelativa());
+                if (archivo.getRutaRelativa().startsWith("Musica/")) {
+                    assertTrue(archivo.getBytes().isDirect(), archivo.getRutaRelativa());
+                }
+                recibidos[0]++;
+            });
+            assertEquals(esperados.size(), recibidos[0], carga.toString());
+            assertTrue(esperados.get("Musica/Cancion").contains("public function setA\u00f1o($a\u00f1o)"));
+            assertTrue(esperados.get("Musica/Cancion").contains("public static $\uD83C\uDFB5nota;"));
+        }
+    }
+
+    @Test
+    void losArchivosSeEscribenEnUTF8SinImportarElCharsetDeLaPlataforma() throws Exception {
+        Path modelo = escribirModelo();
+        Map<String, String> esperados = generador.generarPHP(modelo, opciones());
+
+        Path enFlujo = directorio.resolve("flujo");
+        Path desdeMap = directorio.resolve("map");
+        generador.generarArchivosPHPEnFlujo(modelo.toString(), enFlujo.toString(), opciones());
+        generador.generarArchivosPHP(esperados, desdeMap.toString());
+
+        for (Map.Entry<String, String> esperado : esperados.entrySet()) {
+            byte[] bytes = esperado.getValue().getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(bytes, Files.readAllBytes(enFlujo.resolve(esperado.getKey() + ".php")), esperado.getKey());
+            assertArrayEquals(bytes, Files.readAllBytes(desdeMap.resolve(esperado.getKey() + ".php")), esperado.getKey());
+        }
+    }
+
+    @Test
+    void noSobrescribeLosArchivosQueYaExisten() throws Exception {
+        Path modelo = escribirModelo();
+        Map<String, String> esperados = generador.generarPHP(modelo, opciones());
+        byte[] original = "<?php // editado a mano ?>".getBytes(StandardCharsets.UTF_8);
+
+        Path enFlujo = directorio.resolve("flujo");
+        Path desdeMap = directorio.resolve("map");
+        for (Path salida : new Path[]{enFlujo, desdeMap}) {
+            Files.createDirectories(salida.resolve("Musica"));
+            Files.write(salida.resolve("Musica/Cancion.php"), original);
+        }
+        generador.generarArchivosPHPEnFlujo(modelo.toString(), enFlujo.toString(), opciones());
+        generador.generarArchivosPHP(esperados, desdeMap.toString());
+
+        for (Path salida : new Path[]{enFlujo, desdeMap}) {
+            assertArrayEquals(original, Files.readAllBytes(salida.resolve("Musica/Cancion.php")));
+            assertArrayEquals(esperados.get("Musica/Album").getBytes(StandardCharsets.UTF_8),
+                    Files.readAllBytes(salida.resolve("Musica/Album.php")));
+        }
+    }
+
+    private static OpcionesGeneracion opciones() {
+        OpcionesGeneracion opciones = new OpcionesGeneracion();
+        opciones.setNamespaces(true);
+        opciones.setTipos(true);
+        opciones.setDistribucion(DistribucionArchivos.POR_PAQUETE);
+        return opciones;
+    }
+
+    private Path escribirModelo() throws IOException {
+        String xmi = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<xmi:XMI xmi:version=\"2.1\" xmlns:uml=\"http://schema.omg.org/spec/UML/2.0\""
+                + " xmlns:xmi=\"http://schema.omg.org/spec/XMI/2.1\">"
+                + "<xmi:Documentation exporter=\"StarUML\" exporterVersion=\"2.0\"/>"
+                + "<uml:Model xmi:id=\"M\" xmi:type=\"uml:Model\" name=\"RootModel\">"
+                + "<packagedElement xmi:id=\"M1\" name=\"Model\" xmi:type=\"uml:Model\">"
+                + CLASES
+                + "</packagedElement></uml:Model></xmi:XMI>";
+        Path archivo = directorio.resolve("modelo.xmi");
+        Files.write(archivo, xmi.getBytes(StandardCharsets.UTF_8));
+        return archivo;
+    }
+}